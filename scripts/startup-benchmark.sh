@@ -0,0 +1,31 @@
+#!/usr/bin/env bash
+# Замер времени до первого кадра.
+# Запускает приложение несколько раз в режиме canvas.exitAfterFirstFrame и выводит
+# время каждого запуска и среднее по строке лога "Время до первого кадра: N мс".
+#
+# Использование:
+#   scripts/startup-benchmark.sh [количество запусков] [java-команда без главного класса]
+# По умолчанию замеряется образ jlink из target/canvas, например для сравнения с jar:
+#   scripts/startup-benchmark.sh 10 java --module-path libs/javafx-sdk-21.0.5/lib \
+#       --add-modules javafx.controls,javafx.fxml -jar out/artifacts/canvas_jar/canvas.jar
+set -euo pipefail
+
+runs="${1:-10}"
+shift || true
+if [ "$#" -eq 0 ]; then
+    set -- target/canvas/bin/java -m com.example.canvas/com.example.canvas.MainApp
+fi
+
+total=0
+for ((i = 1; i <= runs; i++)); do
+    # Свойство передается первым аргументом JVM, до -m или -jar
+    millis=$("$1" -Dcanvas.exitAfterFirstFrame=true "${@:2}" 2>&1 \
+        | sed -n 's/.*Время до первого кадра: \([0-9]*\) мс.*/\1/p' | head -n 1)
+    if [ -z "$millis" ]; then
+        echo "Запуск $i: время до первого кадра не найдено в выводе" >&2
+        exit 1
+    fi
+    echo "Запуск $i: $millis мс"
+    total=$((total + millis))
+done
+echo "Среднее: $((total / runs)) мс"
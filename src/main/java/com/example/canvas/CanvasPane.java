@@ -1,27 +1,119 @@
 package com.example.canvas;
 
+import javafx.animation.AnimationTimer;
+import javafx.animation.PauseTransition;
+import javafx.scene.Node;
+import javafx.scene.SnapshotParameters;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
+import javafx.scene.transform.Transform;
+import javafx.stage.Screen;
+import javafx.stage.Window;
+import javafx.util.Duration;
 
 
 /**
  * Класс для работы с холстом приложения.
  * <p>
  * Этот класс предоставляет функциональность для создания и управления холстом,
- * включая его очистку и отрисовку начальной сетки.
+ * включая его очистку и отрисовку начальной сетки. Холст хранит последнюю сгенерированную
+ * сцену ({@link ShapeBuffer}) и может перерисовать ее без повторной генерации.
+ * </p>
+ * <p>
+ * Запросы на перерисовку ({@link #requestRedraw()}) объединяются: сколько бы их ни пришло между
+ * двумя импульсами (pulse) JavaFX, холст будет перерисован не более одного раза.
+ * Во время перетаскивания слайдера масштаба фигуры не перерисовываются: заново рисуются только
+ * сетка и подсвеченная область, а фигуры выводятся готовым изображением ({@link #previewScale(double)}).
+ * </p>
+ * <p>
+ * Холст занимает все пространство своего контейнера ({@link #getNode()}) и при изменении его размера
+ * заново отрисовывает сцену в новом разрешении. Во время непрерывного изменения размера окна
+ * перерисовка выполняется не чаще, чем раз в {@link #RESIZE_THROTTLE_NANOS} наносекунд,
+ * и еще раз — после окончания изменения. Координаты сцены задаются в логических пикселях,
+ * поэтому на экранах с высокой плотностью пикселей (HiDPI) сцена выглядит так же, но четче.
  * </p>
  */
 public class CanvasPane {
 
+    /**
+     * Режим отображения сцены.
+     */
+    public enum RenderMode {
+        /**
+         * Каждая фигура рисуется отдельно.
+         */
+        SHAPES("Фигуры"),
+        /**
+         * Рисуется тепловая карта плотности фигур ({@link DensityHeatmap}).
+         */
+        HEATMAP("Тепловая карта");
+
+        private final String title;
+
+        RenderMode(String title) {
+            this.title = title;
+        }
+
+        @Override
+        public String toString() {
+            return title;
+        }
+    }
+
+    /**
+     * Минимальный интервал между перерисовками во время изменения размера, в наносекундах.
+     */
+    private static final long RESIZE_THROTTLE_NANOS = 100_000_000L;
+
+    /**
+     * Контейнер холста, размер которого определяет размер холста.
+     */
+    private final Pane host;
+
     /**
      * Объект холста для рисования фигур и других графических элементов.
+     * Пересоздается, если окно попадает на экран с большей плотностью пикселей, чем была при создании.
      */
-    private final Canvas canvas;
+    private Canvas canvas;
+    private double canvasPixelScale; // Наибольший масштаб вывода экранов на момент создания холста
+    private double outputScale = 1.0; // Масштаб вывода окна, в котором находится холст
     private double scale = 1.0; // Масштаб по умолчанию
     private double offsetX = 0; // Смещение по оси X
     private double offsetY = 0; // Смещение по оси Y
 
+    /**
+     * Фигуры текущей сцены.
+     */
+    private ShapeBuffer shapes = new ShapeBuffer();
+    private boolean gridVisible = true; // Рисовать ли сетку при перерисовке
+    private boolean areaVisible = false; // Задана ли подсвечиваемая область
+    private int areaMinX;
+    private int areaMaxX;
+    private int areaMinY;
+    private int areaMaxY;
+    private RenderMode renderMode = RenderMode.SHAPES; // Режим отображения сцены
+
+    /**
+     * Таймер, срабатывающий на ближайшем импульсе JavaFX для выполнения отложенной перерисовки.
+     */
+    private final AnimationTimer redrawPulse = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            onPulse();
+        }
+    };
+    private boolean pulseScheduled = false; // Запущен ли таймер перерисовки
+    private boolean redrawPending = false; // Запрошена полная перерисовка
+    private boolean previewPending = false; // Запрошен предпросмотр масштаба
+    private WritableImage preview; // Снимок слоя фигур для предпросмотра
+
+    private long lastResizeRedraw; // Время последней перерисовки во время изменения размера
+    private final PauseTransition resizeSettled = new PauseTransition(Duration.millis(150));
+
     /**
      * Конструктор класса CanvasPane.
      * <p>
@@ -30,11 +122,81 @@ public class CanvasPane {
      * </p>
      */
     public CanvasPane() {
-        this.canvas = new Canvas(900, 1000);
+        this.canvas = createCanvas(900, 1000);
+        this.host = new Pane(canvas);
+        host.setMinSize(0, 0);
+        host.setStyle("-fx-background-color: white;");
+        host.widthProperty().addListener((observable, oldValue, newValue) -> onHostResized());
+        host.heightProperty().addListener((observable, oldValue, newValue) -> onHostResized());
+        resizeSettled.setOnFinished(e -> requestRedraw());
         clearCanvas();
         drawInitialGrid();
     }
 
+    /**
+     * Создает холст, не участвующий в расчете размеров контейнера: размер холста следует за контейнером, а не наоборот.
+     */
+    private Canvas createCanvas(double width, double height) {
+        Canvas created = new Canvas(width, height);
+        created.setManaged(false);
+        canvasPixelScale = Screen.getScreens().stream().mapToDouble(Screen::getOutputScaleX).max().orElse(1.0);
+        return created;
+    }
+
+    /**
+     * Возвращает узел, который нужно добавить в интерфейс: контейнер с холстом.
+     *
+     * @return контейнер холста
+     */
+    public Node getNode() {
+        return host;
+    }
+
+    /**
+     * Начинает отслеживать масштаб вывода окна, чтобы перерисовывать сцену при переносе окна
+     * на экран с другой плотностью пикселей.
+     *
+     * @param window окно, в котором находится холст
+     */
+    public void bindToWindow(Window window) {
+        window.outputScaleXProperty().addListener((observable, oldValue, newValue) -> onOutputScaleChanged(window));
+        window.outputScaleYProperty().addListener((observable, oldValue, newValue) -> onOutputScaleChanged(window));
+        onOutputScaleChanged(window);
+    }
+
+    /**
+     * Подгоняет размер холста под контейнер и перерисовывает сцену с ограничением частоты.
+     */
+    private void onHostResized() {
+        double width = Math.max(1, host.getWidth());
+        double height = Math.max(1, host.getHeight());
+        if (width == canvas.getWidth() && height == canvas.getHeight()) {
+            return;
+        }
+        canvas.setWidth(width);
+        canvas.setHeight(height);
+
+        long now = System.nanoTime();
+        if (now - lastResizeRedraw >= RESIZE_THROTTLE_NANOS) {
+            lastResizeRedraw = now;
+            requestRedraw();
+        }
+        resizeSettled.playFromStart(); // Окончательная перерисовка после окончания изменения размера
+    }
+
+    /**
+     * Перерисовывает сцену в разрешении нового масштаба вывода. Если масштаб больше того,
+     * под который был создан холст, холст пересоздается, чтобы отрисовка шла в полном разрешении.
+     */
+    private void onOutputScaleChanged(Window window) {
+        outputScale = Math.max(window.getOutputScaleX(), window.getOutputScaleY());
+        if (outputScale > canvasPixelScale) {
+            canvas = createCanvas(canvas.getWidth(), canvas.getHeight());
+            host.getChildren().setAll(canvas);
+        }
+        requestRedraw();
+    }
+
     /**
      * Возвращает объект холста.
      *
@@ -89,13 +251,212 @@ public class CanvasPane {
         }
     }
 
-    // Метод для установки масштаба
+    /**
+     * Устанавливает сцену, которую холст будет отображать при перерисовке.
+     *
+     * @param shapes   фигуры сцены
+     * @param minX     минимальная координата X подсвечиваемой области
+     * @param maxX     максимальная координата X подсвечиваемой области
+     * @param minY     минимальная координата Y подсвечиваемой области
+     * @param maxY     максимальная координата Y подсвечиваемой области
+     * @param showGrid рисовать ли сетку под фигурами
+     */
+    public void setScene(ShapeBuffer shapes, int minX, int maxX, int minY, int maxY, boolean showGrid) {
+        this.shapes = shapes;
+        this.areaMinX = minX;
+        this.areaMaxX = maxX;
+        this.areaMinY = minY;
+        this.areaMaxY = maxY;
+        this.areaVisible = true;
+        this.gridVisible = showGrid;
+    }
+
+    /**
+     * Устанавливает сцену, в конец которой добавлены фигуры, и дорисовывает поверх текущего кадра
+     * только добавленные фигуры с индексами от {@code from} до конца буфера.
+     * <p>
+     * Полная перерисовка запрашивается вместо этого, если текущий кадр не соответствует прежней сцене
+     * (другой буфер, область или сетка, ожидается перерисовка, показан предпросмотр масштаба)
+     * или включена тепловая карта, которую нельзя дорисовать частично.
+     * </p>
+     *
+     * @param shapes   фигуры сцены; первые {@code from} фигур уже нарисованы на холсте
+     * @param from     индекс первой добавленной фигуры
+     * @param minX     минимальная координата X подсвечиваемой области
+     * @param maxX     максимальная координата X подсвечиваемой области
+     * @param minY     минимальная координата Y подсвечиваемой области
+     * @param maxY     максимальная координата Y подсвечиваемой области
+     * @param showGrid рисовать ли сетку под фигурами
+     */
+    public void appendScene(ShapeBuffer shapes, int from, int minX, int maxX, int minY, int maxY, boolean showGrid) {
+        boolean frameValid = shapes == this.shapes && areaVisible && showGrid == gridVisible
+                && minX == areaMinX && maxX == areaMaxX && minY == areaMinY && maxY == areaMaxY
+                && renderMode == RenderMode.SHAPES && !redrawPending && !previewPending && preview == null;
+        setScene(shapes, minX, maxX, minY, maxY, showGrid);
+        if (frameValid) {
+            ShapeRenderer.draw(canvas.getGraphicsContext2D(), shapes, from, shapes.size());
+        } else {
+            requestRedraw();
+        }
+    }
+
+    /**
+     * Полностью перерисовывает холст: фон, сетку, подсвеченную область и фигуры текущей сцены.
+     */
+    public void redraw() {
+        redrawPending = false;
+        previewPending = false;
+        preview = null; // Снимок устарел, при следующем предпросмотре будет сделан новый
+        clearCanvas();
+        if (gridVisible) {
+            drawInitialGrid();
+        }
+        updateOffset(); // Пересчитываем смещение, чтобы область была по центру
+        drawShapes();
+    }
+
+    /**
+     * Создает экспортер SVG для текущей сцены с теми же областью, сеткой и масштабом, что и на холсте.
+     * <p>
+     * Экспортер читает буфер сцены напрямую, без копии, поэтому объем памяти не зависит от количества фигур.
+     * Пока идет запись, сцену нельзя изменять: анимацию нужно остановить, а новые фигуры не добавлять.
+     * </p>
+     *
+     * @return настроенный экспортер SVG
+     */
+    public SvgExporter createSvgExporter() {
+        SvgExporter exporter = new SvgExporter(shapes, canvas.getWidth(), canvas.getHeight());
+        if (areaVisible) {
+            exporter.setArea(areaMinX, areaMaxX, areaMinY, areaMaxY, scale);
+        }
+        exporter.setGridVisible(gridVisible);
+        return exporter;
+    }
+
+    /**
+     * Делает снимок текущего содержимого холста.
+     *
+     * @return изображение с содержимым холста
+     */
+    public WritableImage snapshot() {
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setTransform(Transform.scale(outputScale, outputScale));
+        return canvas.snapshot(parameters, null);
+    }
+
+    /**
+     * Показывает ранее сделанный снимок холста ({@link #snapshot()}) вместо перерисовки сцены.
+     * <p>
+     * Если размер снимка не совпадает с размером холста в пикселях экрана, выполняется обычная перерисовка.
+     * Отложенная перерисовка, если она была запрошена, отменяется.
+     * </p>
+     *
+     * @param image снимок холста, соответствующий текущей сцене
+     */
+    public void showSnapshot(Image image) {
+        if (image.getWidth() != Math.ceil(canvas.getWidth() * outputScale)
+                || image.getHeight() != Math.ceil(canvas.getHeight() * outputScale)) {
+            redraw();
+            return;
+        }
+        redrawPending = false;
+        previewPending = false;
+        preview = null;
+        canvas.getGraphicsContext2D().drawImage(image, 0, 0, canvas.getWidth(), canvas.getHeight());
+    }
+
+    /**
+     * Запрашивает полную перерисовку холста на ближайшем импульсе JavaFX.
+     * <p>
+     * Повторные запросы до выполнения перерисовки объединяются в один.
+     * </p>
+     */
+    public void requestRedraw() {
+        redrawPending = true;
+        schedulePulse();
+    }
+
+    /**
+     * Устанавливает масштаб и запрашивает полную перерисовку сетки и всех фигур.
+     *
+     * @param scale новый масштаб
+     */
     public void setScale(double scale) {
         this.scale = scale;
-        clearCanvas();         // Очищаем холст перед перерисовкой
-        drawInitialGrid();     // Перерисовываем сетку с новым масштабом
-        updateOffset(); // Пересчитываем смещение, чтобы область была по центру
-        drawShapes();          // Перерисовываем все фигуры с новым масштабом
+        requestRedraw();
+    }
+
+    /**
+     * Устанавливает масштаб и показывает быстрый предпросмотр вместо полной перерисовки.
+     * <p>
+     * Масштаб влияет только на сетку и подсвеченную область, а фигуры рисуются без него.
+     * Поэтому при первом вызове слой фигур один раз рисуется на прозрачное изображение,
+     * а каждый кадр предпросмотра — это сетка и область в новом масштабе с этим изображением поверх,
+     * в точности как при полной перерисовке. Полная перерисовка выполняется
+     * следующим вызовом {@link #setScale(double)} или {@link #requestRedraw()}.
+     * </p>
+     *
+     * @param scale новый масштаб
+     */
+    public void previewScale(double scale) {
+        if (preview == null) {
+            preview = snapshotShapeLayer();
+        }
+        this.scale = scale;
+        previewPending = true;
+        schedulePulse();
+    }
+
+    /**
+     * Запускает таймер отложенной перерисовки, если он еще не запущен.
+     */
+    private void schedulePulse() {
+        if (!pulseScheduled) {
+            pulseScheduled = true;
+            redrawPulse.start();
+        }
+    }
+
+    /**
+     * Выполняет накопившуюся перерисовку: полную, если она была запрошена, иначе предпросмотр.
+     */
+    private void onPulse() {
+        redrawPulse.stop();
+        pulseScheduled = false;
+        if (redrawPending) {
+            redraw();
+        } else if (previewPending) {
+            previewPending = false;
+            drawPreview();
+        }
+    }
+
+    /**
+     * Рисует кадр предпросмотра: сетку и подсвеченную область в текущем масштабе и готовый слой фигур.
+     */
+    private void drawPreview() {
+        clearCanvas();
+        if (gridVisible) {
+            drawInitialGrid();
+        }
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        if (areaVisible) {
+            ShapeRenderer.highlightArea(gc, areaMinX, areaMaxX, areaMinY, areaMaxY, scale);
+        }
+        // Снимок сделан в пикселях экрана
+        gc.drawImage(preview, 0, 0, preview.getWidth() / outputScale, preview.getHeight() / outputScale);
+    }
+
+    /**
+     * Рисует слой фигур на отдельном холсте с прозрачным фоном и возвращает его снимок в пикселях экрана.
+     */
+    private WritableImage snapshotShapeLayer() {
+        Canvas layer = new Canvas(canvas.getWidth(), canvas.getHeight());
+        drawShapeLayer(layer.getGraphicsContext2D());
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        parameters.setTransform(Transform.scale(outputScale, outputScale));
+        return layer.snapshot(parameters, null);
     }
 
     // Обновление смещения
@@ -104,7 +465,37 @@ public class CanvasPane {
         offsetY = (canvas.getHeight() - (canvas.getHeight() * scale)) / 2;
     }
 
-        private void drawShapes() {
+    private void drawShapes() {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        if (areaVisible) {
+            ShapeRenderer.highlightArea(gc, areaMinX, areaMaxX, areaMinY, areaMaxY, scale);
+        }
+        drawShapeLayer(gc);
+    }
+
+    /**
+     * Рисует фигуры сцены или их тепловую карту. Масштаб холста к этому слою не применяется.
+     */
+    private void drawShapeLayer(GraphicsContext gc) {
+        if (renderMode == RenderMode.HEATMAP && areaVisible) {
+            DensityHeatmap.draw(gc, shapes, areaMinX, areaMaxX, areaMinY, areaMaxY);
+        } else {
+            ShapeRenderer.draw(gc, shapes, 0, shapes.size());
+        }
+    }
+
+    /**
+     * Устанавливает режим отображения сцены и запрашивает перерисовку.
+     *
+     * @param renderMode новый режим отображения
+     */
+    public void setRenderMode(RenderMode renderMode) {
+        this.renderMode = renderMode;
+        requestRedraw();
+    }
+
+    public RenderMode getRenderMode() {
+        return renderMode;
     }
 
 
@@ -113,5 +504,25 @@ public class CanvasPane {
         return scale;
     }
 
+    public ShapeBuffer getShapes() {
+        return shapes;
+    }
+
+    public int getAreaMinX() {
+        return areaMinX;
+    }
+
+    public int getAreaMaxX() {
+        return areaMaxX;
+    }
+
+    public int getAreaMinY() {
+        return areaMinY;
+    }
+
+    public int getAreaMaxY() {
+        return areaMaxY;
+    }
+
 
 }
@@ -1,14 +1,28 @@
 package com.example.canvas;
 
+import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
 import javafx.geometry.Insets;
+import javafx.scene.Node;
 import javafx.scene.control.Alert;
 import javafx.scene.control.CheckBox;
+import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.Label;
 import javafx.scene.control.Slider;
 import javafx.scene.control.TextField;
+import javafx.scene.image.WritableImage;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.stage.FileChooser;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
 /**
  * Класс для создания и настройки панели управления параметрами генерации фигур.
  * <p>
@@ -28,25 +42,102 @@ public class ControlPanel {
      */
     private final GridPane pane;
 
+    /**
+     * Холст, которым управляет панель.
+     */
+    private final CanvasPane canvasPane;
+
+    /**
+     * Кэш сгенерированных сцен и их снимков для повторных запросов с теми же параметрами.
+     */
+    private final RenderCache cache;
+
+    /**
+     * Клиент общего пула генерации, через который генерируются сцены этого холста.
+     */
+    private final GenerationPool.Client generation;
+
+    /**
+     * Анимация сцены холста.
+     */
+    private final ShapeAnimator animator;
+
+    /**
+     * История сцены холста для добавления пакетов фигур, отмены и повтора.
+     */
+    private final SceneHistory history = new SceneHistory();
+
+    /**
+     * Номер последнего нажатия кнопки генерации; по нему отбрасываются устаревшие загрузки из кэша.
+     */
+    private long generationRequest;
+
+    /**
+     * Идет ли экспорт SVG: в это время экспортер читает буфер сцены, и изменять его нельзя.
+     */
+    private boolean exporting;
+
+    /**
+     * Результат генерации, полученный во время экспорта; применяется после его окончания.
+     */
+    private Runnable deferredScene;
+
+    /**
+     * Метка состояния генерации.
+     */
+    private final Label statusLabel = new Label();
+
+    /**
+     * Чекбокс анимации сцены.
+     */
+    private final CheckBox animate = new CheckBox("Анимация");
+
+    // Кнопки генерации, истории и экспорта: их состояние меняется и вне configurePanel
+    private final javafx.scene.control.Button generateButton = new javafx.scene.control.Button("Сгенерировать");
+    private final javafx.scene.control.Button undoButton = new javafx.scene.control.Button("Отменить");
+    private final javafx.scene.control.Button redoButton = new javafx.scene.control.Button("Повторить");
+    private final javafx.scene.control.Button exportButton = new javafx.scene.control.Button("Экспорт SVG");
+
+    /**
+     * Элементы, отключаемые на время экспорта SVG: все, что может изменить буфер сцены или запустить анимацию.
+     */
+    private final List<Node> exportLockedControls = List.of(generateButton, undoButton, redoButton, animate, exportButton);
+
     /**
      * Конструктор класса ControlPanel.
      * <p>
      * Создает новую панель управления и настраивает ее элементы.
      * </p>
      *
-     * @param canvasPane объект {@link CanvasPane}, с которым взаимодействует панель управления
+     * @param canvasPane  объект {@link CanvasPane}, с которым взаимодействует панель управления
+     * @param pool        общий пул генерации сцен
+     * @param cache       общий кэш сцен
+     * @param onNewWindow действие для открытия нового окна с холстом
      */
-    public ControlPanel(CanvasPane canvasPane) {
+    public ControlPanel(CanvasPane canvasPane, GenerationPool pool, RenderCache cache, Runnable onNewWindow) {
         this.pane = new GridPane();
-        configurePanel(canvasPane);
+        this.canvasPane = canvasPane;
+        this.cache = cache;
+        this.generation = pool.createClient();
+        this.animator = new ShapeAnimator(canvasPane);
+        configurePanel(onNewWindow);
+    }
+
+    /**
+     * Освобождает ресурсы панели при закрытии окна: отменяет генерацию и загрузку из кэша и останавливает анимацию.
+     */
+    public void dispose() {
+        generationRequest++; // Незавершенная загрузка из кэша больше не покажет сцену
+        generation.cancel();
+        animator.stop();
     }
 
     /**
      * Настраивает панель управления, добавляя текстовые поля, слайдеры, чекбоксы и кнопки.
      *
-     * @param canvasPane объект {@link CanvasPane}, на котором будут рисоваться фигуры
+     * @param onNewWindow действие для открытия нового окна с холстом
      */
-    private void configurePanel(CanvasPane canvasPane) {
+    private void configurePanel(Runnable onNewWindow) {
         pane.setPadding(new Insets(10));
         pane.setHgap(10);
         pane.setVgap(5);
@@ -55,10 +146,21 @@ public class ControlPanel {
         Slider scaleSlider = createSlider(1, 1.5, 1, "Масштаб:");
         Slider densitySlider = createSlider(15, 50, 1, "Кучность:");
 
-        // Добавляем слушатель на изменение значения слайдера
+        // Добавляем слушатель на изменение значения слайдера.
+        // Во время перетаскивания показываем быстрый предпросмотр, полная перерисовка — после отпускания.
+        // Во время анимации холст и так перерисовывается каждый кадр, поэтому предпросмотр не нужен
         scaleSlider.valueProperty().addListener((observable, oldValue, newValue) -> {
             double scale = newValue.doubleValue();  // Получаем значение слайдера
-            canvasPane.setScale(scale);  // Обновляем масштаб в CanvasPane
+            if (scaleSlider.isValueChanging() && !animator.isRunning()) {
+                canvasPane.previewScale(scale);
+            } else {
+                canvasPane.setScale(scale);  // Обновляем масштаб в CanvasPane
+            }
+        });
+        scaleSlider.valueChangingProperty().addListener((observable, wasChanging, changing) -> {
+            if (!changing) {
+                canvasPane.setScale(scaleSlider.getValue());
+            }
         });
 
         // Добавление слайдера на панель
@@ -77,13 +179,69 @@ public class ControlPanel {
         TextField tfMinY = createTextField("Минимальная Y:");
         TextField tfMaxY = createTextField("Максимальная Y:");
 
+        // Зерно генератора: при одинаковом зерне и параметрах сцена берется из кэша
+        TextField tfSeed = createTextField("Зерно (необязательно)");
+
         // Чекбоксы
         CheckBox fillShapes = new CheckBox("Заливка");
         CheckBox showGrid = new CheckBox("Показать сетку");
         showGrid.setSelected(true);
+        CheckBox appendShapes = new CheckBox("Добавлять к сцене");
+
+        // Отмена и повтор добавленных пакетов фигур
+        updateHistoryButtons();
+        undoButton.setOnAction(e -> {
+            animator.stop();
+            history.undo();
+            // Отмена показывает начало буфера, которое перерисовывается за один объединенный проход
+            GenerationParams params = history.getParams();
+            canvasPane.setScene(history.getShapes(), params.minX(), params.maxX(), params.minY(), params.maxY(),
+                    showGrid.isSelected());
+            canvasPane.requestRedraw();
+            updateHistoryButtons();
+            if (animate.isSelected()) {
+                animator.start();
+            }
+        });
+        redoButton.setOnAction(e -> {
+            animator.stop();
+            int from = history.redo();
+            // Повтор дорисовывает только возвращенный пакет
+            GenerationParams params = history.getParams();
+            canvasPane.appendScene(history.getShapes(), from, params.minX(), params.maxX(), params.minY(), params.maxY(),
+                    showGrid.isSelected());
+            updateHistoryButtons();
+            if (animate.isSelected()) {
+                animator.start();
+            }
+        });
+
+        // Показатель времени кадра анимации
+        Label frameTimeLabel = new Label();
+        frameTimeLabel.textProperty().bind(Bindings.format("Кадр: %.1f мс (%.0f fps)",
+                animator.frameTimeProperty(), animator.fpsProperty()));
+        frameTimeLabel.visibleProperty().bind(animate.selectedProperty());
+        animate.selectedProperty().addListener((observable, oldValue, newValue) -> {
+            if (newValue) {
+                animator.start();
+            } else {
+                animator.stop();
+            }
+        });
+
+        // Приоритет холста в общем пуле генерации и состояние генерации
+        ChoiceBox<GenerationPool.Priority> priorityBox = new ChoiceBox<>();
+        priorityBox.getItems().addAll(GenerationPool.Priority.values());
+        priorityBox.setValue(GenerationPool.Priority.NORMAL);
+        priorityBox.valueProperty().addListener((observable, oldValue, newValue) -> generation.setPriority(newValue));
+
+        // Режим отображения: отдельные фигуры или тепловая карта плотности
+        ChoiceBox<CanvasPane.RenderMode> renderModeBox = new ChoiceBox<>();
+        renderModeBox.getItems().addAll(CanvasPane.RenderMode.values());
+        renderModeBox.setValue(canvasPane.getRenderMode());
+        renderModeBox.valueProperty().addListener((observable, oldValue, newValue) -> canvasPane.setRenderMode(newValue));
 
         // Кнопка генерации
-        javafx.scene.control.Button generateButton = new javafx.scene.control.Button("Сгенерировать");
         generateButton.setOnAction(e -> {
             try {
                 // Считывание значений из полей
@@ -106,24 +264,55 @@ public class ControlPanel {
 
                 boolean fill = fillShapes.isSelected();
                 boolean grid = showGrid.isSelected();
+                Long seed = parseOptionalSeed(tfSeed);
 
-                // Очистка холста
-                canvasPane.clearCanvas();
-                if (grid) {
-                    canvasPane.drawInitialGrid();
-                }
-
-                // Подсветка области
-                // При вызове highlightArea передаем значение масштаба
-                ShapeGenerator generator = new ShapeGenerator(canvasPane.getGraphicsContext());
-                generator.highlightArea(minX, maxX, minY, maxY, canvasPane.getScale());
+                // Без зерна каждая генерация уникальна: берем случайное зерно и не кэшируем результат
+                boolean cacheable = seed != null;
+                GenerationParams params = new GenerationParams(lines, circles, rectangles, triangles,
+                        parabolas, trapezoids, fill, scaleSlider.getValue(), densitySlider.getValue(),
+                        minX, maxX, minY, maxY, cacheable ? seed : ThreadLocalRandom.current().nextLong());
 
+                // Добавляемый пакет дорисовывается к текущей сцене, поэтому кэш для него не используется
+                boolean append = appendShapes.isSelected() && !history.isEmpty();
 
-                // Генерация фигур
-                generator.generateShapes(lines, circles, rectangles, triangles, parabolas, trapezoids, fill,
-                        scaleSlider.getValue(), densitySlider.getValue(), minX, maxX, minY, maxY);
+                animator.stop();
+                long request = ++generationRequest;
+                Consumer<RenderCache.Entry> showEntry = entry -> {
+                    animator.stop();
+                    showCached(entry, params, grid);
+                    updateHistoryButtons();
+                    statusLabel.setText("");
+                    if (animate.isSelected()) {
+                        animator.start();
+                    }
+                };
+                Runnable generate = () -> submitGeneration(params, append, cacheable, grid);
 
-                logger.info("Фигуры успешно сгенерированы.");
+                if (!append && cacheable) {
+                    RenderCache.Entry entry = cache.get(params);
+                    if (entry != null) {
+                        generation.cancel();
+                        showEntry.accept(entry);
+                        return;
+                    }
+                    if (cache.hasDiskTier()) {
+                        // Чтение сцены с диска идет в фоновом потоке; если ее там нет — обычная генерация
+                        generation.cancel();
+                        statusLabel.setText("Загрузка из кэша...");
+                        cache.load(params, loaded -> {
+                            if (request != generationRequest) {
+                                return; // После этого нажатия была запущена другая генерация
+                            }
+                            if (loaded != null) {
+                                showEntry.accept(loaded);
+                            } else {
+                                generate.run();
+                            }
+                        });
+                        return;
+                    }
+                }
+                generate.run();
             } catch (NumberFormatException ex) {
                 logger.error("Ошибка ввода: ", ex);
                 showError("Ошибка", "Пожалуйста, заполните все поля корректными числовыми значениями.");
@@ -135,6 +324,9 @@ public class ControlPanel {
 
         });
 
+        // Кнопка экспорта сцены в SVG
+        exportButton.setOnAction(e -> exportSvg());
+
         // Расположение элементов в интерфейсе
 // Расположение элементов в интерфейсе
         pane.add(new javafx.scene.control.Label("Количество линий:"), 0, 0);
@@ -159,6 +351,10 @@ public class ControlPanel {
         pane.add(tfMinY, 3, 2); // Текстовое поле для минимальной Y
         pane.add(new javafx.scene.control.Label("Максимальная Y:"), 2, 3);
         pane.add(tfMaxY, 3, 3); // Текстовое поле для максимальной Y
+        pane.add(new javafx.scene.control.Label("Зерно:"), 2, 4);
+        pane.add(tfSeed, 3, 4); // Текстовое поле для зерна генератора
+        pane.add(new javafx.scene.control.Label("Режим:"), 2, 5);
+        pane.add(renderModeBox, 3, 5); // Выбор режима отображения
 
         pane.add(new javafx.scene.control.Label("Настройки:"), 4, 0);
         pane.add(new javafx.scene.control.Label("Масштаб:"), 4, 1);
@@ -168,7 +364,155 @@ public class ControlPanel {
         pane.add(fillShapes, 5, 0);
         pane.add(showGrid, 5, 1);
         pane.add(generateButton, 5, 2);
+        pane.add(animate, 5, 3);
+        pane.add(frameTimeLabel, 5, 4);
+        javafx.scene.control.Button newWindowButton = new javafx.scene.control.Button("Новое окно");
+        newWindowButton.setOnAction(e -> onNewWindow.run());
+        pane.add(newWindowButton, 6, 0);
+        pane.add(exportButton, 6, 1);
+        pane.add(new javafx.scene.control.Label("Приоритет:"), 6, 2);
+        pane.add(priorityBox, 6, 3);
+        pane.add(statusLabel, 6, 4);
+        pane.add(appendShapes, 5, 5);
+        pane.add(new HBox(5, undoButton, redoButton), 6, 5);
+
+    }
+
+    /**
+     * Обновляет доступность кнопок отмены и повтора по состоянию истории.
+     */
+    private void updateHistoryButtons() {
+        undoButton.setDisable(!history.canUndo());
+        redoButton.setDisable(!history.canRedo());
+    }
+
+    /**
+     * Запускает генерацию сцены в общем пуле; отрисовка выполняется в потоке JavaFX по готовности.
+     *
+     * @param params    параметры генерации, включая зерно
+     * @param append    добавить фигуры к текущей сцене вместо ее замены
+     * @param cacheable сохранить ли результат в кэш
+     * @param grid      отображать ли сетку
+     */
+    private void submitGeneration(GenerationParams params, boolean append, boolean cacheable, boolean grid) {
+        statusLabel.setText("Генерация...");
+        generation.submit(params, shapes -> {
+            Runnable apply = () -> showGenerated(shapes, params, append, cacheable, grid);
+            if (exporting) {
+                deferredScene = apply; // Буфер сцены сейчас читает экспорт
+            } else {
+                apply.run();
+            }
+        }, ex -> {
+            statusLabel.setText("");
+            showError("Ошибка", "Не удалось сгенерировать фигуры: " + ex.getMessage());
+        });
+    }
 
+    /**
+     * Показывает результат генерации: заменяет сцену или добавляет к ней новый пакет.
+     */
+    private void showGenerated(ShapeBuffer shapes, GenerationParams params, boolean append, boolean cacheable,
+                               boolean grid) {
+        animator.stop();
+        if (append) {
+            // Дорисовка только нового пакета поверх текущего кадра
+            int from = history.append(shapes, params);
+            canvasPane.appendScene(history.getShapes(), from,
+                    params.minX(), params.maxX(), params.minY(), params.maxY(), grid);
+        } else {
+            // Отрисовка сцены: сетка, подсвеченная область (с учетом масштаба) и фигуры
+            history.reset(shapes, params);
+            canvasPane.setScene(shapes, params.minX(), params.maxX(), params.minY(), params.maxY(), grid);
+            canvasPane.redraw();
+            if (cacheable) {
+                RenderCache.Entry entry = cache.put(params, shapes);
+                cache.putImage(entry, canvasPane.snapshot(), grid, canvasPane.getRenderMode());
+            }
+        }
+        updateHistoryButtons();
+        statusLabel.setText("");
+        if (animate.isSelected()) {
+            animator.start();
+        }
+        logger.info("Фигуры успешно сгенерированы.");
+    }
+
+    /**
+     * Показывает сцену из кэша.
+     * <p>
+     * Если в кэше есть снимок холста с тем же режимом сетки, он выводится без перерисовки фигур.
+     * </p>
+     *
+     * @param entry  запись кэша
+     * @param params параметры генерации, включая зерно
+     * @param grid   отображать ли сетку
+     */
+    private void showCached(RenderCache.Entry entry, GenerationParams params, boolean grid) {
+        ShapeBuffer shapes = entry.copyShapes();
+        history.reset(shapes, params);
+        canvasPane.setScene(shapes, params.minX(), params.maxX(), params.minY(), params.maxY(), grid);
+        WritableImage image = entry.getImage(grid, canvasPane.getRenderMode());
+        if (image != null) {
+            canvasPane.showSnapshot(image);
+        } else {
+            canvasPane.redraw();
+            cache.putImage(entry, canvasPane.snapshot(), grid, canvasPane.getRenderMode());
+        }
+        logger.info("Сцена взята из кэша.");
+    }
+
+    /**
+     * Запрашивает у пользователя файл и экспортирует в него текущую сцену в формате SVG.
+     * <p>
+     * Запись выполняется в фоновом потоке, чтобы экспорт больших сцен не блокировал интерфейс.
+     * Экспортер читает буфер сцены напрямую, без копии, поэтому на время экспорта анимация
+     * приостанавливается, элементы {@link #exportLockedControls} отключаются, а результат генерации,
+     * пришедший во время экспорта, применяется после его окончания.
+     * </p>
+     */
+    private void exportSvg() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Экспорт SVG");
+        chooser.setInitialFileName("scene.svg");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("SVG", "*.svg"));
+        File file = chooser.showSaveDialog(pane.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        animator.stop();
+        exporting = true;
+        for (Node control : exportLockedControls) {
+            control.setDisable(true);
+        }
+        SvgExporter exporter = canvasPane.createSvgExporter();
+        Thread thread = new Thread(() -> {
+            try {
+                exporter.export(file.toPath());
+                logger.info("Сцена экспортирована в {}", file);
+            } catch (IOException ex) {
+                logger.error("Ошибка экспорта: ", ex);
+                Platform.runLater(() -> showError("Ошибка", "Не удалось сохранить файл: " + ex.getMessage()));
+            } finally {
+                Platform.runLater(() -> {
+                    exporting = false;
+                    for (Node control : exportLockedControls) {
+                        control.setDisable(false);
+                    }
+                    if (deferredScene != null) {
+                        deferredScene.run();
+                        deferredScene = null;
+                    }
+                    updateHistoryButtons();
+                    if (animate.isSelected() && !animator.isRunning()) {
+                        animator.start();
+                    }
+                });
+            }
+        }, "svg-export");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     /**
@@ -216,6 +560,21 @@ public class ControlPanel {
         return Integer.parseInt(text.trim());
     }
 
+    /**
+     * Преобразует значение необязательного поля зерна в число.
+     *
+     * @param textField текстовое поле с зерном генератора
+     * @return зерно или {@code null}, если поле пустое
+     * @throws NumberFormatException если поле содержит некорректное значение
+     */
+    private Long parseOptionalSeed(TextField textField) {
+        String text = textField.getText();
+        if (text == null || text.trim().isEmpty()) {
+            return null;
+        }
+        return Long.parseLong(text.trim());
+    }
+
     /**
      * Показывает сообщение об ошибке пользователю.
      *
@@ -0,0 +1,205 @@
+package com.example.canvas;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.util.stream.IntStream;
+
+/**
+ * Тепловая карта плотности фигур.
+ * <p>
+ * Центры фигур раскладываются по ячейкам двумерной гистограммы в тех же координатах,
+ * в которых фигуры рисуются на холсте. Гистограмма строится над подсвеченной областью, расширенной
+ * до всех центров фигур: прямоугольники хранятся уже умноженными на масштаб генерации
+ * и при масштабе больше 1 выходят за область, но должны учитываться там, где они нарисованы.
+ * Буфер сцены делится на части, каждая часть считается в своем потоке в собственный массив
+ * {@code int[]}, после чего массивы складываются. Время работы линейно по количеству фигур,
+ * а объем памяти зависит только от числа ячеек. Гистограмма выводится изображением,
+ * в котором цвет ячейки определяется логарифмом количества попавших в нее фигур.
+ * </p>
+ */
+public final class DensityHeatmap {
+
+    /**
+     * Размер ячейки гистограммы в единицах координат сцены.
+     */
+    private static final int CELL_SIZE = 2;
+
+    /**
+     * Максимальное количество ячеек по каждой оси.
+     */
+    private static final int MAX_CELLS = 1024;
+
+    /**
+     * Минимальное количество фигур на одну параллельную часть.
+     */
+    private static final int MIN_SHAPES_PER_TASK = 50_000;
+
+    /**
+     * Палитра: от прозрачного синего для редких ячеек через голубой и желтый к красному для самых плотных.
+     */
+    private static final int[] PALETTE = createPalette();
+
+    private DensityHeatmap() {
+    }
+
+    /**
+     * Возвращает область гистограммы: заданную область, расширенную так, чтобы в нее попали центры всех фигур.
+     *
+     * @param shapes фигуры сцены
+     * @param minX   минимальная координата X подсвеченной области
+     * @param maxX   максимальная координата X подсвеченной области
+     * @param minY   минимальная координата Y подсвеченной области
+     * @param maxY   максимальная координата Y подсвеченной области
+     * @return границы {minX, maxX, minY, maxY}
+     */
+    public static double[] bounds(ShapeBuffer shapes, double minX, double maxX, double minY, double maxY) {
+        double[] bounds = {minX, maxX, minY, maxY};
+        for (int i = 0; i < shapes.size(); i++) {
+            double x = centerX(shapes, i);
+            double y = centerY(shapes, i);
+            bounds[0] = Math.min(bounds[0], x);
+            bounds[1] = Math.max(bounds[1], x);
+            bounds[2] = Math.min(bounds[2], y);
+            bounds[3] = Math.max(bounds[3], y);
+        }
+        return bounds;
+    }
+
+    /**
+     * Строит гистограмму центров фигур по ячейкам области [minX, maxX] x [minY, maxY].
+     * Фигуры, центр которых лежит вне области, не учитываются.
+     *
+     * @param shapes фигуры сцены
+     * @param minX   минимальная координата X области
+     * @param maxX   максимальная координата X области
+     * @param minY   минимальная координата Y области
+     * @param maxY   максимальная координата Y области
+     * @param cols   количество ячеек по оси X
+     * @param rows   количество ячеек по оси Y
+     * @return количество фигур в каждой ячейке, построчно
+     */
+    public static int[] bin(ShapeBuffer shapes, double minX, double maxX, double minY, double maxY, int cols, int rows) {
+        int n = shapes.size();
+        int tasks = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), n / MIN_SHAPES_PER_TASK));
+        double cellWidth = Math.max(1, maxX - minX) / cols;
+        double cellHeight = Math.max(1, maxY - minY) / rows;
+
+        return IntStream.range(0, tasks).parallel()
+                .mapToObj(task -> {
+                    // Собственные ячейки для каждой части, без синхронизации между потоками
+                    int[] bins = new int[cols * rows];
+                    int from = (int) ((long) n * task / tasks);
+                    int to = (int) ((long) n * (task + 1) / tasks);
+                    for (int i = from; i < to; i++) {
+                        double x = centerX(shapes, i);
+                        double y = centerY(shapes, i);
+                        if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                            // Центр на правой или нижней границе попадает в последнюю ячейку
+                            int col = Math.min(cols - 1, (int) ((x - minX) / cellWidth));
+                            int row = Math.min(rows - 1, (int) ((y - minY) / cellHeight));
+                            bins[row * cols + col]++;
+                        }
+                    }
+                    return bins;
+                })
+                .reduce((left, right) -> {
+                    for (int i = 0; i < left.length; i++) {
+                        left[i] += right[i];
+                    }
+                    return left;
+                })
+                .orElseGet(() -> new int[cols * rows]);
+    }
+
+    /**
+     * Рисует тепловую карту фигур над областью генерации, расширенной до центров всех фигур ({@link #bounds}).
+     * Изображение выводится в координатах фигур, без масштаба холста: ячейка совпадает с местом,
+     * где нарисованы попавшие в нее фигуры.
+     *
+     * @param gc     графический контекст для рисования
+     * @param shapes фигуры сцены
+     * @param minX   минимальная координата X области
+     * @param maxX   максимальная координата X области
+     * @param minY   минимальная координата Y области
+     * @param maxY   максимальная координата Y области
+     */
+    public static void draw(GraphicsContext gc, ShapeBuffer shapes, int minX, int maxX, int minY, int maxY) {
+        double[] bounds = bounds(shapes, minX, maxX, minY, maxY);
+        double width = bounds[1] - bounds[0];
+        double height = bounds[3] - bounds[2];
+        int cols = Math.min(MAX_CELLS, Math.max(1, (int) (width / CELL_SIZE)));
+        int rows = Math.min(MAX_CELLS, Math.max(1, (int) (height / CELL_SIZE)));
+        int[] bins = bin(shapes, bounds[0], bounds[1], bounds[2], bounds[3], cols, rows);
+
+        int max = 0;
+        for (int count : bins) {
+            max = Math.max(max, count);
+        }
+        if (max == 0) {
+            return;
+        }
+
+        // Логарифмическая шкала, чтобы не терялись редкие ячейки на фоне плотного центра
+        double norm = (PALETTE.length - 1) / Math.log1p(max);
+        int[] pixels = new int[bins.length];
+        for (int i = 0; i < bins.length; i++) {
+            pixels[i] = bins[i] == 0 ? 0 : PALETTE[(int) (Math.log1p(bins[i]) * norm)];
+        }
+        WritableImage image = new WritableImage(cols, rows);
+        image.getPixelWriter().setPixels(0, 0, cols, rows, PixelFormat.getIntArgbInstance(), pixels, 0, cols);
+
+        boolean smoothing = gc.isImageSmoothing();
+        gc.setImageSmoothing(false); // Ячейки рисуются четкими прямоугольниками
+        gc.drawImage(image, bounds[0], bounds[2], Math.max(1, width), Math.max(1, height));
+        gc.setImageSmoothing(smoothing);
+    }
+
+    /**
+     * Возвращает координату X центра фигуры (для многоугольников и линий — опорную точку).
+     */
+    private static double centerX(ShapeBuffer shapes, int i) {
+        switch (shapes.getType(i)) {
+            case ShapeBuffer.CIRCLE:
+            case ShapeBuffer.RECTANGLE:
+                return shapes.getX(i) + shapes.getA(i) / 2;
+            default:
+                return shapes.getX(i);
+        }
+    }
+
+    /**
+     * Возвращает координату Y центра фигуры (для многоугольников и линий — опорную точку).
+     */
+    private static double centerY(ShapeBuffer shapes, int i) {
+        switch (shapes.getType(i)) {
+            case ShapeBuffer.CIRCLE:
+                return shapes.getY(i) + shapes.getA(i) / 2;
+            case ShapeBuffer.RECTANGLE:
+                return shapes.getY(i) + shapes.getB(i) / 2;
+            default:
+                return shapes.getY(i);
+        }
+    }
+
+    /**
+     * Создает палитру из 256 цветов в формате ARGB.
+     */
+    private static int[] createPalette() {
+        int[] palette = new int[256];
+        for (int i = 0; i < palette.length; i++) {
+            double t = i / 255.0;
+            double r = clamp(1.5 - Math.abs(4 * t - 3));
+            double g = clamp(1.5 - Math.abs(4 * t - 2));
+            double b = clamp(1.5 - Math.abs(4 * t - 1));
+            int alpha = (int) (120 + 135 * t);
+            palette[i] = alpha << 24 | (int) (r * 255) << 16 | (int) (g * 255) << 8 | (int) (b * 255);
+        }
+        return palette;
+    }
+
+    private static double clamp(double value) {
+        return Math.max(0, Math.min(1, value));
+    }
+}
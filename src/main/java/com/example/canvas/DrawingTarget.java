@@ -0,0 +1,46 @@
+package com.example.canvas;
+
+import javafx.scene.paint.Color;
+
+/**
+ * Поверхность, на которой {@link ShapeRenderer} рисует фигуры.
+ * <p>
+ * Содержит только те операции {@link javafx.scene.canvas.GraphicsContext}, которые нужны рендереру.
+ * На холсте используется {@link GraphicsContextTarget}; другие реализации позволяют
+ * подсчитывать или записывать вызовы рисования без холста и без дисплея.
+ * </p>
+ */
+public interface DrawingTarget {
+
+    void setLineWidth(double width);
+
+    void setFill(Color color);
+
+    void setStroke(Color color);
+
+    void strokeLine(double x1, double y1, double x2, double y2);
+
+    void fillOval(double x, double y, double w, double h);
+
+    void strokeOval(double x, double y, double w, double h);
+
+    void fillRect(double x, double y, double w, double h);
+
+    void strokeRect(double x, double y, double w, double h);
+
+    void fillPolygon(double[] xPoints, double[] yPoints, int nPoints);
+
+    void strokePolygon(double[] xPoints, double[] yPoints, int nPoints);
+
+    void beginPath();
+
+    void moveTo(double x, double y);
+
+    void quadraticCurveTo(double xc, double yc, double x1, double y1);
+
+    void closePath();
+
+    void fill();
+
+    void stroke();
+}
@@ -0,0 +1,37 @@
+package com.example.canvas;
+
+/**
+ * Полный набор параметров генерации сцены.
+ * <p>
+ * При одинаковых параметрах (включая зерно генератора случайных чисел) генерация
+ * дает одинаковую сцену, поэтому запись используется как ключ кэша {@link RenderCache}.
+ * </p>
+ *
+ * @param lines      количество линий
+ * @param circles    количество кругов
+ * @param rectangles количество прямоугольников
+ * @param triangles  количество треугольников
+ * @param parabolas  количество парабол
+ * @param trapezoids количество трапеций
+ * @param fill       закрашивать фигуры или только рисовать контур
+ * @param scale      масштабирование размеров фигур
+ * @param density    плотность генерации координат
+ * @param minX       минимальная координата X
+ * @param maxX       максимальная координата X
+ * @param minY       минимальная координата Y
+ * @param maxY       максимальная координата Y
+ * @param seed       зерно генератора случайных чисел
+ */
+public record GenerationParams(int lines, int circles, int rectangles, int triangles, int parabolas, int trapezoids,
+                               boolean fill, double scale, double density,
+                               int minX, int maxX, int minY, int maxY, long seed) {
+
+    /**
+     * Возвращает общее количество фигур сцены.
+     *
+     * @return сумма количеств фигур всех типов
+     */
+    public long totalShapes() {
+        return (long) lines + circles + rectangles + triangles + parabolas + trapezoids;
+    }
+}
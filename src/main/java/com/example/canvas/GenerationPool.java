@@ -0,0 +1,251 @@
+package com.example.canvas;
+
+import javafx.application.Platform;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Общий пул потоков для генерации сцен всех открытых холстов.
+ * <p>
+ * Количество потоков ограничено. Каждая генерация выполняется частями по {@link #CHUNK_SIZE} фигур,
+ * и в очереди у нее находится не более одной части: следующая часть ставится в очередь только
+ * после завершения предыдущей. Поэтому даже очень большая генерация не занимает пул целиком,
+ * и части генераций разных холстов чередуются.
+ * </p>
+ * <p>
+ * Очередь упорядочена по номеру постановки с поправкой на приоритет холста:
+ * часть с более высоким приоритетом обгоняет ограниченное число более ранних частей,
+ * но не может откладывать их бесконечно.
+ * </p>
+ */
+public class GenerationPool {
+
+    /**
+     * Логгер для записи информации о работе пула.
+     */
+    private static final Logger logger = LogManager.getLogger(GenerationPool.class);
+
+    /**
+     * Количество фигур, генерируемых одной частью задачи.
+     */
+    private static final int CHUNK_SIZE = 20_000;
+
+    /**
+     * На сколько позиций очереди часть обгоняет более ранние части за каждую ступень приоритета.
+     */
+    private static final long PRIORITY_STEP = 8;
+
+    /**
+     * Порядок генерации типов фигур, совпадающий с {@link ShapeGenerator#generateShapes(GenerationParams)}.
+     */
+    private static final byte[] TYPE_ORDER = {
+            ShapeBuffer.LINE, ShapeBuffer.CIRCLE, ShapeBuffer.RECTANGLE,
+            ShapeBuffer.TRIANGLE, ShapeBuffer.PARABOLA, ShapeBuffer.TRAPEZOID
+    };
+
+    /**
+     * Приоритет холста при распределении потоков пула.
+     */
+    public enum Priority {
+        LOW("Низкий"), NORMAL("Обычный"), HIGH("Высокий");
+
+        private final String title;
+
+        Priority(String title) {
+            this.title = title;
+        }
+
+        @Override
+        public String toString() {
+            return title;
+        }
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Конструктор класса GenerationPool.
+     *
+     * @param threads количество потоков пула
+     */
+    public GenerationPool(int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "generation-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Возвращает количество потоков по умолчанию: все ядра, кроме одного, оставленного потоку JavaFX.
+     *
+     * @return количество потоков
+     */
+    public static int defaultThreads() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    /**
+     * Создает клиента пула для одного холста.
+     *
+     * @return новый клиент с обычным приоритетом
+     */
+    public Client createClient() {
+        return new Client();
+    }
+
+    /**
+     * Останавливает пул. Незавершенные генерации отменяются.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Клиент пула, соответствующий одному холсту.
+     * <p>
+     * У клиента одновременно выполняется не более одной генерации: новая генерация отменяет предыдущую.
+     * </p>
+     */
+    public final class Client {
+        private volatile Priority priority = Priority.NORMAL;
+        private Job current;
+
+        private Client() {
+        }
+
+        public void setPriority(Priority priority) {
+            this.priority = priority;
+        }
+
+        /**
+         * Запускает генерацию сцены в пуле, отменяя предыдущую генерацию этого клиента.
+         * <p>
+         * Обработчики вызываются в потоке JavaFX и только если генерация не была отменена.
+         * </p>
+         *
+         * @param params    параметры генерации, включая зерно
+         * @param onDone    обработчик сгенерированной сцены
+         * @param onFailure обработчик ошибки генерации
+         */
+        public void submit(GenerationParams params, Consumer<ShapeBuffer> onDone, Consumer<Throwable> onFailure) {
+            cancel();
+            current = new Job(this, params, onDone, onFailure);
+            current.enqueue();
+        }
+
+        /**
+         * Отменяет текущую генерацию клиента, если она есть.
+         */
+        public void cancel() {
+            if (current != null) {
+                current.cancelled = true;
+                current = null;
+            }
+        }
+    }
+
+    /**
+     * Генерация одной сцены, выполняемая частями.
+     */
+    private final class Job implements Runnable, Comparable<Job> {
+        private final Client client;
+        private final GenerationParams params;
+        private final Consumer<ShapeBuffer> onDone;
+        private final Consumer<Throwable> onFailure;
+        private final ShapeBuffer shapes = new ShapeBuffer();
+        private final ShapeGenerator generator;
+        private final int[] remaining;
+        private final long startTime = System.nanoTime();
+        private volatile boolean cancelled;
+        private int typeIndex;
+        private long queueKey;
+
+        private Job(Client client, GenerationParams params, Consumer<ShapeBuffer> onDone, Consumer<Throwable> onFailure) {
+            this.client = client;
+            this.params = params;
+            this.onDone = onDone;
+            this.onFailure = onFailure;
+            this.generator = new ShapeGenerator(shapes, params.seed());
+            this.remaining = new int[]{params.lines(), params.circles(), params.rectangles(),
+                    params.triangles(), params.parabolas(), params.trapezoids()};
+        }
+
+        /**
+         * Ставит следующую часть генерации в очередь пула с учетом текущего приоритета клиента.
+         * После остановки пула часть не ставится: генерация просто прекращается.
+         */
+        private void enqueue() {
+            if (executor.isShutdown()) {
+                return;
+            }
+            queueKey = sequence.incrementAndGet() - client.priority.ordinal() * PRIORITY_STEP;
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                logger.debug("Пул остановлен, генерация прервана");
+            }
+        }
+
+        /**
+         * Генерирует очередную часть сцены и ставит в очередь следующую либо сообщает о завершении.
+         */
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            try {
+                int budget = CHUNK_SIZE;
+                while (budget > 0 && typeIndex < TYPE_ORDER.length) {
+                    int count = Math.min(budget, remaining[typeIndex]);
+                    if (count > 0) {
+                        generator.generate(TYPE_ORDER[typeIndex], count, params);
+                        remaining[typeIndex] -= count;
+                        budget -= count;
+                    }
+                    if (remaining[typeIndex] == 0) {
+                        typeIndex++;
+                    }
+                }
+            } catch (Throwable e) { // В том числе OutOfMemoryError: иначе статус генерации не сбросится
+                logger.error("Ошибка генерации: ", e);
+                Platform.runLater(() -> {
+                    if (!cancelled) {
+                        onFailure.accept(e);
+                    }
+                });
+                return;
+            }
+
+            if (typeIndex < TYPE_ORDER.length) {
+                if (!cancelled) {
+                    enqueue();
+                }
+                return;
+            }
+            logger.debug("Сгенерировано {} фигур за {} мс", shapes.size(), (System.nanoTime() - startTime) / 1_000_000);
+            Platform.runLater(() -> {
+                if (!cancelled) {
+                    onDone.accept(shapes);
+                }
+            });
+        }
+
+        @Override
+        public int compareTo(Job other) {
+            return Long.compare(queueKey, other.queueKey);
+        }
+    }
+}
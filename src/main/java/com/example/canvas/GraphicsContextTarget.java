@@ -0,0 +1,101 @@
+package com.example.canvas;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+/**
+ * Поверхность рисования, передающая вызовы графическому контексту холста.
+ */
+public final class GraphicsContextTarget implements DrawingTarget {
+
+    private final GraphicsContext gc;
+
+    /**
+     * Конструктор класса GraphicsContextTarget.
+     *
+     * @param gc графический контекст холста
+     */
+    public GraphicsContextTarget(GraphicsContext gc) {
+        this.gc = gc;
+    }
+
+    @Override
+    public void setLineWidth(double width) {
+        gc.setLineWidth(width);
+    }
+
+    @Override
+    public void setFill(Color color) {
+        gc.setFill(color);
+    }
+
+    @Override
+    public void setStroke(Color color) {
+        gc.setStroke(color);
+    }
+
+    @Override
+    public void strokeLine(double x1, double y1, double x2, double y2) {
+        gc.strokeLine(x1, y1, x2, y2);
+    }
+
+    @Override
+    public void fillOval(double x, double y, double w, double h) {
+        gc.fillOval(x, y, w, h);
+    }
+
+    @Override
+    public void strokeOval(double x, double y, double w, double h) {
+        gc.strokeOval(x, y, w, h);
+    }
+
+    @Override
+    public void fillRect(double x, double y, double w, double h) {
+        gc.fillRect(x, y, w, h);
+    }
+
+    @Override
+    public void strokeRect(double x, double y, double w, double h) {
+        gc.strokeRect(x, y, w, h);
+    }
+
+    @Override
+    public void fillPolygon(double[] xPoints, double[] yPoints, int nPoints) {
+        gc.fillPolygon(xPoints, yPoints, nPoints);
+    }
+
+    @Override
+    public void strokePolygon(double[] xPoints, double[] yPoints, int nPoints) {
+        gc.strokePolygon(xPoints, yPoints, nPoints);
+    }
+
+    @Override
+    public void beginPath() {
+        gc.beginPath();
+    }
+
+    @Override
+    public void moveTo(double x, double y) {
+        gc.moveTo(x, y);
+    }
+
+    @Override
+    public void quadraticCurveTo(double xc, double yc, double x1, double y1) {
+        gc.quadraticCurveTo(xc, yc, x1, y1);
+    }
+
+    @Override
+    public void closePath() {
+        gc.closePath();
+    }
+
+    @Override
+    public void fill() {
+        gc.fill();
+    }
+
+    @Override
+    public void stroke() {
+        gc.stroke();
+    }
+}
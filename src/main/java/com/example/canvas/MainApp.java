@@ -1,17 +1,32 @@
 package com.example.canvas;
 
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.geometry.Rectangle2D;
 import javafx.scene.Scene;
+import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
+import javafx.stage.Screen;
 import javafx.stage.Stage;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.time.Instant;
+
 /**
  * Главный класс приложения для генерации случайных фигур.
  * <p>
  * Этот класс отвечает за инициализацию JavaFX-приложения, создание графического интерфейса и запуск программы.
  * </p>
+ * <p>
+ * Можно открыть несколько независимых холстов в отдельных окнах; они используют общий
+ * {@link GenerationPool} и общий {@link RenderCache}.
+ * Для быстрого старта первым кадром показывается только холст, а панель управления создается
+ * сразу после него. Время от запуска процесса до первого кадра записывается в лог.
+ * Если задано системное свойство {@code canvas.exitAfterFirstFrame=true}, приложение завершается
+ * после построения интерфейса — этот режим используется замером времени запуска и
+ * обучающим запуском при создании архива CDS.
+ * </p>
  */
 public class MainApp extends Application {
 
@@ -20,6 +35,26 @@ public class MainApp extends Application {
      */
     private static final Logger logger = LogManager.getLogger(MainApp.class);
 
+    /**
+     * Время запуска приложения, если время старта процесса недоступно.
+     */
+    private static final Instant launchTime = Instant.now();
+
+    /**
+     * Пул генерации, общий для всех холстов.
+     */
+    private GenerationPool generationPool;
+
+    /**
+     * Кэш сцен, общий для всех холстов.
+     */
+    private RenderCache renderCache;
+
+    /**
+     * Количество открытых за время работы холстов, используется в заголовках окон.
+     */
+    private int documentCount = 0;
+
     /**
      * Точка входа в приложение.
      *
@@ -39,26 +74,89 @@ public class MainApp extends Application {
     public void start(Stage primaryStage) {
         try {
             logger.info("Инициализация главного окна");
-            // Устанавливаем заголовок окна
-            primaryStage.setTitle("Генератор случайных фигур");
+            // Общие для всех холстов пул генерации и кэш сцен
+            generationPool = new GenerationPool(GenerationPool.defaultThreads());
+            renderCache = RenderCache.fromSystemProperties();
 
-            // Создаем основное содержимое интерфейса
-            VBox root = new VBox();
-            CanvasPane canvasPane = new CanvasPane();
-            ControlPanel controlPanel = new ControlPanel(canvasPane);
-
-            // Добавляем элементы управления и холст в корневой элемент
-            root.getChildren().addAll(controlPanel.getPane(), canvasPane.getCanvas());
-
-            // Создаем сцену с заданными размерами
-            Scene scene = new Scene(root, 900, 1000);
-            primaryStage.setScene(scene);
-
-            // Отображаем окно
-            primaryStage.show();
+            openDocument(primaryStage, true);
             logger.info("Приложение успешно запущено");
         } catch (Exception e) {
             logger.error("Ошибка при запуске приложения: ", e);
         }
     }
+
+    /**
+     * Метод, вызываемый при завершении приложения. Останавливает пул генерации.
+     */
+    @Override
+    public void stop() {
+        if (generationPool != null) {
+            generationPool.shutdown();
+        }
+    }
+
+    /**
+     * Открывает окно с новым независимым холстом.
+     * <p>
+     * Холст показывается сразу, а панель управления добавляется после первого кадра окна.
+     * </p>
+     *
+     * @param stage   окно для холста
+     * @param primary является ли окно главным (для него замеряется время до первого кадра)
+     */
+    private void openDocument(Stage stage, boolean primary) {
+        documentCount++;
+        // Устанавливаем заголовок окна
+        stage.setTitle(primary ? "Генератор случайных фигур" : "Генератор случайных фигур — холст " + documentCount);
+
+        // Создаем основное содержимое интерфейса. Панель управления создается после первого кадра
+        VBox root = new VBox();
+        CanvasPane canvasPane = new CanvasPane();
+        root.getChildren().add(canvasPane.getNode());
+        VBox.setVgrow(canvasPane.getNode(), Priority.ALWAYS); // Холст занимает все свободное место окна
+
+        // Создаем сцену с размерами по умолчанию, но не больше доступной области экрана
+        Rectangle2D bounds = Screen.getPrimary().getVisualBounds();
+        Scene scene = new Scene(root, Math.min(900, bounds.getWidth()), Math.min(1000, bounds.getHeight()));
+        stage.setScene(scene);
+        canvasPane.bindToWindow(stage);
+        scene.addPostLayoutPulseListener(new Runnable() {
+            @Override
+            public void run() {
+                scene.removePostLayoutPulseListener(this); // Нужен только первый кадр
+                onFirstFrame(stage, root, canvasPane, primary);
+            }
+        });
+
+        // Отображаем окно
+        stage.show();
+    }
+
+    /**
+     * Достраивает интерфейс окна после первого кадра, а для главного окна записывает в лог время до первого кадра.
+     *
+     * @param stage      окно холста
+     * @param root       корневой элемент интерфейса
+     * @param canvasPane холст, с которым работает панель управления
+     * @param primary    является ли окно главным
+     */
+    private void onFirstFrame(Stage stage, VBox root, CanvasPane canvasPane, boolean primary) {
+        if (primary) {
+            Instant start = ProcessHandle.current().info().startInstant().orElse(launchTime);
+            long millis = Instant.now().toEpochMilli() - start.toEpochMilli();
+            logger.info("Время до первого кадра: {} мс", millis);
+        }
+
+        Platform.runLater(() -> {
+            // Добавляем элементы управления над холстом
+            ControlPanel controlPanel = new ControlPanel(canvasPane, generationPool, renderCache,
+                    () -> openDocument(new Stage(), false));
+            root.getChildren().add(0, controlPanel.getPane());
+            stage.setOnHidden(e -> controlPanel.dispose());
+
+            if (primary && Boolean.getBoolean("canvas.exitAfterFirstFrame")) {
+                Platform.runLater(Platform::exit);
+            }
+        });
+    }
 }
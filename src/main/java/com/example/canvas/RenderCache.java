@@ -0,0 +1,360 @@
+package com.example.canvas;
+
+import javafx.application.Platform;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Кэш результатов генерации с вытеснением давно не использованных записей (LRU).
+ * <p>
+ * Ключом служит полный набор параметров генерации {@link GenerationParams}, включая зерно.
+ * Запись хранит сгенерированную сцену и, если он был сделан, снимок отрисованного холста.
+ * Суммарный объем записей в памяти ограничен бюджетом; при его превышении вытесняются
+ * записи, к которым дольше всего не обращались.
+ * </p>
+ * <p>
+ * Если задан каталог на диске, сцены дополнительно сохраняются в файлы и переживают перезапуск
+ * приложения. Запись и чтение файлов выполняются в фоновом потоке, результат чтения передается
+ * в поток JavaFX. Объем каталога ограничен своим бюджетом: после каждой записи удаляются файлы,
+ * к которым дольше всего не обращались. Снимки на диск не сохраняются: при загрузке с диска
+ * сцена просто перерисовывается.
+ * </p>
+ */
+public class RenderCache {
+
+    /**
+     * Логгер для записи информации о работе кэша.
+     */
+    private static final Logger logger = LogManager.getLogger(RenderCache.class);
+
+    private static final int FILE_MAGIC = 0x53434E31; // "SCN1"
+
+    /**
+     * Запись кэша: сцена и необязательный снимок холста.
+     */
+    public static final class Entry {
+        private final ShapeBuffer shapes;
+        private WritableImage image;
+        private boolean imageWithGrid;
+        private CanvasPane.RenderMode imageRenderMode;
+
+        private Entry(ShapeBuffer shapes) {
+            this.shapes = shapes;
+        }
+
+        /**
+         * Возвращает копию сцены, которую можно изменять (например, анимировать) без порчи кэша.
+         *
+         * @return копия сохраненной сцены
+         */
+        public ShapeBuffer copyShapes() {
+            return shapes.copy();
+        }
+
+        /**
+         * Возвращает снимок холста, если он был сделан с тем же отображением сетки и в том же режиме.
+         *
+         * @param showGrid   отображается ли сетка
+         * @param renderMode режим отображения сцены
+         * @return снимок холста или {@code null}, если подходящего снимка нет
+         */
+        public WritableImage getImage(boolean showGrid, CanvasPane.RenderMode renderMode) {
+            return image != null && imageWithGrid == showGrid && imageRenderMode == renderMode ? image : null;
+        }
+
+        private long estimatedBytes() {
+            long bytes = shapes.estimatedBytes();
+            if (image != null) {
+                bytes += (long) image.getWidth() * (long) image.getHeight() * 4;
+            }
+            return bytes;
+        }
+    }
+
+    private final long maxBytes;
+    private final Path diskDirectory;
+    private final long maxDiskBytes;
+    private final LinkedHashMap<GenerationParams, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ExecutorService diskExecutor;
+    private long usedBytes;
+
+    /**
+     * Конструктор класса RenderCache.
+     *
+     * @param maxBytes      бюджет памяти для записей кэша в байтах
+     * @param diskDirectory каталог для хранения сцен на диске или {@code null}, если дисковый уровень не нужен
+     * @param maxDiskBytes  бюджет каталога на диске в байтах
+     */
+    public RenderCache(long maxBytes, Path diskDirectory, long maxDiskBytes) {
+        this.maxBytes = maxBytes;
+        this.diskDirectory = diskDirectory;
+        this.maxDiskBytes = maxDiskBytes;
+        this.diskExecutor = diskDirectory == null ? null : Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "render-cache-disk");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Создает кэш с настройками из системных свойств.
+     * <p>
+     * {@code canvas.cache.maxMb} — бюджет памяти в мегабайтах (по умолчанию 256),
+     * {@code canvas.cache.dir} — каталог дискового уровня (по умолчанию не используется),
+     * {@code canvas.cache.diskMaxMb} — бюджет каталога в мегабайтах (по умолчанию 1024).
+     * </p>
+     *
+     * @return новый кэш
+     */
+    public static RenderCache fromSystemProperties() {
+        long maxMb = Long.getLong("canvas.cache.maxMb", 256);
+        long diskMaxMb = Long.getLong("canvas.cache.diskMaxMb", 1024);
+        String dir = System.getProperty("canvas.cache.dir");
+        return new RenderCache(maxMb * 1024 * 1024, dir == null || dir.isBlank() ? null : Path.of(dir),
+                diskMaxMb * 1024 * 1024);
+    }
+
+    /**
+     * Ищет запись по параметрам генерации в памяти.
+     *
+     * @param params параметры генерации
+     * @return найденная запись или {@code null}
+     */
+    public Entry get(GenerationParams params) {
+        return entries.get(params);
+    }
+
+    /**
+     * Проверяет, есть ли у кэша дисковый уровень.
+     *
+     * @return {@code true}, если сцены сохраняются на диск
+     */
+    public boolean hasDiskTier() {
+        return diskExecutor != null;
+    }
+
+    /**
+     * Загружает сцену с диска в фоновом потоке и добавляет ее в память.
+     * <p>
+     * Обработчик вызывается в потоке JavaFX; если сцены на диске нет или дискового уровня нет,
+     * он получает {@code null}.
+     * </p>
+     *
+     * @param params   параметры генерации
+     * @param onLoaded обработчик найденной записи
+     */
+    public void load(GenerationParams params, Consumer<Entry> onLoaded) {
+        if (diskExecutor == null) {
+            onLoaded.accept(null);
+            return;
+        }
+        diskExecutor.execute(() -> {
+            ShapeBuffer shapes = readFromDisk(params);
+            Platform.runLater(() -> {
+                Entry entry = entries.get(params);
+                if (entry == null && shapes != null) {
+                    entry = new Entry(shapes);
+                    insert(params, entry);
+                }
+                onLoaded.accept(entry);
+            });
+        });
+    }
+
+    /**
+     * Сохраняет сгенерированную сцену. В кэш попадает копия, поэтому переданный буфер можно изменять.
+     *
+     * @param params параметры генерации
+     * @param shapes сгенерированная сцена
+     * @return созданная запись кэша
+     */
+    public Entry put(GenerationParams params, ShapeBuffer shapes) {
+        Entry entry = new Entry(shapes.copy());
+        insert(params, entry);
+        writeToDisk(params, entry.shapes);
+        return entry;
+    }
+
+    /**
+     * Прикрепляет к записи снимок отрисованного холста.
+     *
+     * @param entry      запись кэша
+     * @param image      снимок холста
+     * @param showGrid   была ли на снимке отрисована сетка
+     * @param renderMode режим отображения, в котором сделан снимок
+     */
+    public void putImage(Entry entry, WritableImage image, boolean showGrid, CanvasPane.RenderMode renderMode) {
+        usedBytes -= entry.estimatedBytes();
+        entry.image = image;
+        entry.imageWithGrid = showGrid;
+        entry.imageRenderMode = renderMode;
+        usedBytes += entry.estimatedBytes();
+        evict();
+    }
+
+    /**
+     * Добавляет запись в память, заменяя прежнюю с тем же ключом, и вытесняет лишние записи.
+     */
+    private void insert(GenerationParams params, Entry entry) {
+        Entry previous = entries.put(params, entry);
+        if (previous != null) {
+            usedBytes -= previous.estimatedBytes();
+        }
+        usedBytes += entry.estimatedBytes();
+        evict();
+    }
+
+    /**
+     * Вытесняет давно не использованные записи, пока объем не уложится в бюджет.
+     * Последняя добавленная запись сохраняется, даже если одна превышает бюджет.
+     */
+    private void evict() {
+        Iterator<Map.Entry<GenerationParams, Entry>> iterator = entries.entrySet().iterator();
+        while (usedBytes > maxBytes && entries.size() > 1 && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            usedBytes -= eldest.estimatedBytes();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Возвращает путь к файлу сцены на диске для заданных параметров.
+     */
+    private Path diskPath(GenerationParams params) {
+        return diskDirectory.resolve(String.format("%08x.scene", params.hashCode()));
+    }
+
+    /**
+     * Сохраняет сцену на диск в фоновом потоке и укладывает каталог в бюджет. Ошибки записи только логируются.
+     */
+    private void writeToDisk(GenerationParams params, ShapeBuffer shapes) {
+        if (diskExecutor == null) {
+            return;
+        }
+        diskExecutor.execute(() -> {
+            Path target = diskPath(params);
+            try {
+                Files.createDirectories(diskDirectory);
+                Path temp = Files.createTempFile(diskDirectory, "scene", ".tmp");
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeInt(FILE_MAGIC);
+                    out.writeUTF(params.toString());
+                    out.writeInt(shapes.size());
+                    for (int i = 0; i < shapes.size(); i++) {
+                        Color color = shapes.getColor(i);
+                        out.writeByte(shapes.getType(i));
+                        out.writeBoolean(shapes.isFilled(i));
+                        out.writeDouble(color.getRed());
+                        out.writeDouble(color.getGreen());
+                        out.writeDouble(color.getBlue());
+                        out.writeDouble(color.getOpacity());
+                        out.writeDouble(shapes.getX(i));
+                        out.writeDouble(shapes.getY(i));
+                        out.writeDouble(shapes.getA(i));
+                        out.writeDouble(shapes.getB(i));
+                        out.writeDouble(shapes.getC(i));
+                        out.writeDouble(shapes.getD(i));
+                    }
+                }
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                logger.warn("Не удалось сохранить сцену в кэш на диске: {}", target, e);
+            }
+            evictFromDisk();
+        });
+    }
+
+    /**
+     * Удаляет файлы сцен, к которым дольше всего не обращались, пока каталог не уложится в бюджет.
+     * Время изменения файла обновляется при каждом чтении, поэтому порядок соответствует LRU.
+     * Выполняется в фоновом потоке дискового уровня.
+     */
+    private void evictFromDisk() {
+        record SceneFile(Path path, FileTime lastModified, long size) {
+        }
+        List<SceneFile> files = new ArrayList<>();
+        long total = 0;
+        try (Stream<Path> stream = Files.list(diskDirectory)) {
+            for (Path path : (Iterable<Path>) stream::iterator) {
+                if (path.getFileName().toString().endsWith(".scene")) {
+                    SceneFile file = new SceneFile(path, Files.getLastModifiedTime(path), Files.size(path));
+                    files.add(file);
+                    total += file.size();
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Не удалось прочитать каталог кэша на диске: {}", diskDirectory, e);
+            return;
+        }
+        files.sort(Comparator.comparing(SceneFile::lastModified));
+        for (SceneFile file : files) {
+            if (total <= maxDiskBytes) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(file.path());
+                total -= file.size();
+                logger.debug("Сцена удалена из кэша на диске: {}", file.path());
+            } catch (IOException e) {
+                logger.warn("Не удалось удалить сцену из кэша на диске: {}", file.path(), e);
+            }
+        }
+    }
+
+    /**
+     * Загружает сцену с диска. Файл другой версии или с другими параметрами (коллизия хэша) игнорируется.
+     *
+     * @return загруженная сцена или {@code null}
+     */
+    private ShapeBuffer readFromDisk(GenerationParams params) {
+        if (diskDirectory == null) {
+            return null;
+        }
+        Path source = diskPath(params);
+        if (!Files.isRegularFile(source)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(source)))) {
+            if (in.readInt() != FILE_MAGIC || !in.readUTF().equals(params.toString())) {
+                return null;
+            }
+            int size = in.readInt();
+            ShapeBuffer shapes = new ShapeBuffer();
+            for (int i = 0; i < size; i++) {
+                byte type = in.readByte();
+                boolean fill = in.readBoolean();
+                Color color = new Color(in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble());
+                shapes.add(type, in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble(),
+                        in.readDouble(), in.readDouble(), color, fill);
+            }
+            Files.setLastModifiedTime(source, FileTime.fromMillis(System.currentTimeMillis()));
+            logger.info("Сцена загружена из кэша на диске: {}", source);
+            return shapes;
+        } catch (IOException e) {
+            logger.warn("Не удалось прочитать сцену из кэша на диске: {}", source, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.canvas;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * История сцены холста для отмены и повтора добавленных пакетов фигур.
+ * <p>
+ * Все пакеты сцены хранятся в одном общем буфере {@link ShapeBuffer} друг за другом.
+ * Пакет в истории — это только смещение его конца в буфере и параметры, с которыми он
+ * был сгенерирован, поэтому история не хранит ни копий фигур, ни снимков холста.
+ * Отмена укорачивает буфер до конца предыдущего пакета, повтор возвращает отброшенные фигуры.
+ * Добавление нового пакета после отмены удаляет отмененные пакеты.
+ * </p>
+ * <p>
+ * Первый пакет — сцена, сгенерированная без добавления; он не отменяется.
+ * </p>
+ */
+public class SceneHistory {
+
+    /**
+     * Пакет фигур: смещение его конца в общем буфере и параметры генерации.
+     */
+    private record Segment(int end, GenerationParams params) {
+    }
+
+    private ShapeBuffer shapes = new ShapeBuffer();
+    private final List<Segment> segments = new ArrayList<>();
+    private int applied; // Количество примененных (не отмененных) пакетов
+
+    /**
+     * Начинает новую историю со сцены, сгенерированной без добавления.
+     *
+     * @param shapes фигуры сцены; буфер становится общим буфером истории
+     * @param params параметры генерации сцены
+     */
+    public void reset(ShapeBuffer shapes, GenerationParams params) {
+        this.shapes = shapes;
+        segments.clear();
+        segments.add(new Segment(shapes.size(), params));
+        applied = 1;
+    }
+
+    /**
+     * Добавляет пакет фигур в конец сцены. Отмененные пакеты при этом удаляются.
+     * Если история пуста, пакет становится первой сценой.
+     *
+     * @param batch  сгенерированный пакет фигур
+     * @param params параметры генерации пакета
+     * @return индекс первой добавленной фигуры в общем буфере
+     */
+    public int append(ShapeBuffer batch, GenerationParams params) {
+        if (isEmpty()) {
+            reset(batch, params);
+            return 0;
+        }
+        segments.subList(applied, segments.size()).clear();
+        int from = shapes.addAll(batch);
+        segments.add(new Segment(shapes.size(), params));
+        applied++;
+        return from;
+    }
+
+    /**
+     * Отменяет последний добавленный пакет.
+     *
+     * @throws IllegalStateException если отменять нечего
+     */
+    public void undo() {
+        if (!canUndo()) {
+            throw new IllegalStateException("Нет пакетов для отмены");
+        }
+        applied--;
+        shapes.truncate(segments.get(applied - 1).end());
+    }
+
+    /**
+     * Повторяет последний отмененный пакет.
+     *
+     * @return индекс первой возвращенной фигуры в общем буфере
+     * @throws IllegalStateException если повторять нечего
+     */
+    public int redo() {
+        if (!canRedo()) {
+            throw new IllegalStateException("Нет пакетов для повтора");
+        }
+        int from = shapes.size();
+        shapes.restore(segments.get(applied).end());
+        applied++;
+        return from;
+    }
+
+    public boolean canUndo() {
+        return applied > 1;
+    }
+
+    public boolean canRedo() {
+        return applied < segments.size();
+    }
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    /**
+     * Возвращает общий буфер с фигурами примененных пакетов.
+     *
+     * @return фигуры текущей сцены
+     */
+    public ShapeBuffer getShapes() {
+        return shapes;
+    }
+
+    /**
+     * Возвращает параметры генерации последнего примененного пакета; по ним определяется подсвечиваемая область.
+     *
+     * @return параметры последнего пакета
+     */
+    public GenerationParams getParams() {
+        return segments.get(applied - 1).params();
+    }
+}
@@ -0,0 +1,313 @@
+package com.example.canvas;
+
+import javafx.animation.AnimationTimer;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Random;
+
+/**
+ * Покадровая анимация фигур сцены.
+ * <p>
+ * Фигуры дрейфуют внутри подсвеченной области и отражаются от ее рамки в том виде, в котором она нарисована,
+ * то есть с учетом масштаба холста. При изменении масштаба во время анимации границы пересчитываются.
+ * Симуляция выполняется с фиксированным шагом {@link #STEP} секунд независимо от частоты кадров:
+ * время между кадрами накапливается и расходуется целыми шагами, после чего холст перерисовывается один раз.
+ * Скорости и допустимые диапазоны опорных точек хранятся в параллельных массивах,
+ * а позиции обновляются прямо в {@link ShapeBuffer} сцены.
+ * </p>
+ */
+public class ShapeAnimator {
+
+    /**
+     * Логгер для записи информации о работе анимации.
+     */
+    private static final Logger logger = LogManager.getLogger(ShapeAnimator.class);
+
+    private static final double STEP = 1.0 / 60; // Шаг симуляции в секундах
+    private static final int MAX_STEPS_PER_FRAME = 5; // Ограничение, чтобы не отставать бесконечно после долгого кадра
+    private static final double MAX_SPEED = 80; // Максимальная скорость фигуры, пикселей в секунду
+    private static final double SMOOTHING = 0.1; // Коэффициент сглаживания показаний времени кадра
+
+    private final CanvasPane canvasPane;
+    private final Random random = new Random();
+    private final AnimationTimer timer;
+
+    private final DoubleProperty frameTime = new SimpleDoubleProperty(); // Время обработки кадра, мс
+    private final DoubleProperty fps = new SimpleDoubleProperty(); // Частота кадров
+
+    private ShapeBuffer shapes;
+    private double[] vx = new double[0];
+    private double[] vy = new double[0];
+    private double[] loX = new double[0]; // Допустимые границы опорной точки каждой фигуры
+    private double[] hiX = new double[0];
+    private double[] loY = new double[0];
+    private double[] hiY = new double[0];
+    private double[] frameLoX = new double[0]; // Границы опорной точки, при которых фигура целиком внутри рамки
+    private double[] frameHiX = new double[0];
+    private double[] frameLoY = new double[0];
+    private double[] frameHiY = new double[0];
+
+    private double boundsScale; // Масштаб холста, для которого вычислены границы
+
+    private long lastTime;
+    private double accumulator;
+    private boolean running;
+
+    /**
+     * Конструктор класса ShapeAnimator.
+     *
+     * @param canvasPane холст, сцена которого анимируется
+     */
+    public ShapeAnimator(CanvasPane canvasPane) {
+        this.canvasPane = canvasPane;
+        this.timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                onFrame(now);
+            }
+        };
+    }
+
+    /**
+     * Запускает анимацию текущей сцены холста.
+     * <p>
+     * Каждой фигуре назначается случайная скорость, а ее опорная точка ограничивается так,
+     * чтобы фигура целиком оставалась внутри рамки подсвеченной области.
+     * </p>
+     */
+    public void start() {
+        stop();
+        shapes = canvasPane.getShapes();
+        int n = shapes.size();
+        if (vx.length < n) {
+            vx = new double[n];
+            vy = new double[n];
+            loX = new double[n];
+            hiX = new double[n];
+            loY = new double[n];
+            hiY = new double[n];
+            frameLoX = new double[n];
+            frameHiX = new double[n];
+            frameLoY = new double[n];
+            frameHiY = new double[n];
+        }
+
+        computeBounds();
+        for (int i = 0; i < n; i++) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double speed = random.nextDouble() * MAX_SPEED;
+            vx[i] = loX[i] < hiX[i] ? Math.cos(angle) * speed : 0;
+            vy[i] = loY[i] < hiY[i] ? Math.sin(angle) * speed : 0;
+        }
+
+        lastTime = 0;
+        accumulator = 0;
+        running = true;
+        timer.start();
+        logger.info("Анимация запущена, фигур: {}", n);
+    }
+
+    /**
+     * Останавливает анимацию. Фигуры остаются в текущих позициях.
+     */
+    public void stop() {
+        if (running) {
+            timer.stop();
+            running = false;
+            logger.info("Анимация остановлена");
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Возвращает сглаженное время обработки одного кадра (симуляция и перерисовка).
+     *
+     * @return свойство со временем кадра в миллисекундах
+     */
+    public ReadOnlyDoubleProperty frameTimeProperty() {
+        return frameTime;
+    }
+
+    /**
+     * Возвращает сглаженную частоту кадров.
+     *
+     * @return свойство с количеством кадров в секунду
+     */
+    public ReadOnlyDoubleProperty fpsProperty() {
+        return fps;
+    }
+
+    /**
+     * Обрабатывает очередной кадр: выполняет накопившиеся шаги симуляции и перерисовывает холст.
+     *
+     * @param now время текущего кадра в наносекундах
+     */
+    private void onFrame(long now) {
+        long frameStart = System.nanoTime();
+        if (lastTime != 0) {
+            double elapsed = (now - lastTime) / 1e9;
+            accumulator += elapsed;
+            if (elapsed > 0) {
+                fps.set(fps.get() + (1 / elapsed - fps.get()) * SMOOTHING);
+            }
+        }
+        lastTime = now;
+        if (canvasPane.getScale() != boundsScale) {
+            computeBounds(); // Рамка области перерисована в другом масштабе
+        }
+
+        int steps = 0;
+        while (accumulator >= STEP && steps < MAX_STEPS_PER_FRAME) {
+            step();
+            accumulator -= STEP;
+            steps++;
+        }
+        if (steps == MAX_STEPS_PER_FRAME) {
+            accumulator = 0; // Отбрасываем отставание, чтобы не уйти в бесконечную догонялку
+        }
+
+        canvasPane.redraw();
+        double millis = (System.nanoTime() - frameStart) / 1e6;
+        frameTime.set(frameTime.get() + (millis - frameTime.get()) * SMOOTHING);
+    }
+
+    /**
+     * Выполняет один шаг симуляции: сдвигает все фигуры и отражает их от границ области.
+     * Когда фигура, начинавшая за рамкой, входит в нее по одной из осей, диапазон по этой оси
+     * сужается до рамки, и дальше фигура отражается уже от нее.
+     */
+    private void step() {
+        int n = shapes.size();
+        for (int i = 0; i < n; i++) {
+            double x = shapes.getX(i) + vx[i] * STEP;
+            double y = shapes.getY(i) + vy[i] * STEP;
+
+            if (x < loX[i]) {
+                x = Math.min(2 * loX[i] - x, hiX[i]);
+                vx[i] = -vx[i];
+            } else if (x > hiX[i]) {
+                x = Math.max(2 * hiX[i] - x, loX[i]);
+                vx[i] = -vx[i];
+            }
+            if (y < loY[i]) {
+                y = Math.min(2 * loY[i] - y, hiY[i]);
+                vy[i] = -vy[i];
+            } else if (y > hiY[i]) {
+                y = Math.max(2 * hiY[i] - y, loY[i]);
+                vy[i] = -vy[i];
+            }
+
+            if (x >= frameLoX[i] && loX[i] < frameLoX[i]) {
+                loX[i] = frameLoX[i];
+            }
+            if (x <= frameHiX[i] && hiX[i] > frameHiX[i]) {
+                hiX[i] = frameHiX[i];
+            }
+            if (y >= frameLoY[i] && loY[i] < frameLoY[i]) {
+                loY[i] = frameLoY[i];
+            }
+            if (y <= frameHiY[i] && hiY[i] > frameHiY[i]) {
+                hiY[i] = frameHiY[i];
+            }
+            shapes.setPosition(i, x, y);
+        }
+    }
+
+    /**
+     * Вычисляет допустимые диапазоны опорных точек всех фигур для рамки области в текущем масштабе холста.
+     * <p>
+     * Фигуры рисуются в тех же координатах, что и рамка ({@code область * масштаб}), поэтому границы
+     * задаются в них же. Прямоугольники уже хранятся умноженными на масштаб генерации, остальные фигуры —
+     * без масштаба, так что при масштабе больше 1 часть фигур может начинать за рамкой.
+     * </p>
+     */
+    private void computeBounds() {
+        double scale = canvasPane.getScale();
+        boundsScale = scale;
+        double minX = canvasPane.getAreaMinX() * scale;
+        double maxX = canvasPane.getAreaMaxX() * scale;
+        double minY = canvasPane.getAreaMinY() * scale;
+        double maxY = canvasPane.getAreaMaxY() * scale;
+        for (int i = 0; i < shapes.size(); i++) {
+            computeBounds(i, minX, maxX, minY, maxY);
+        }
+    }
+
+    /**
+     * Вычисляет диапазон, в котором может находиться опорная точка фигуры,
+     * чтобы фигура не выходила за пределы рамки.
+     * <p>
+     * Диапазон всегда включает текущую позицию: фигура, начинающая за рамкой, не переносится скачком,
+     * а отражается от своего начального места внутрь и, войдя в рамку, остается в ней (см. {@link #step()}).
+     * Если фигура больше рамки, диапазон вырождается в текущую позицию и фигура остается на месте.
+     * </p>
+     */
+    private void computeBounds(int i, double minX, double maxX, double minY, double maxY) {
+        double a = shapes.getA(i);
+        double b = shapes.getB(i);
+        double c = shapes.getC(i);
+        double d = shapes.getD(i);
+
+        // Границы фигуры относительно опорной точки
+        double left;
+        double right;
+        double top;
+        double bottom;
+        switch (shapes.getType(i)) {
+            case ShapeBuffer.CIRCLE:
+                left = 0;
+                right = a;
+                top = 0;
+                bottom = a;
+                break;
+            case ShapeBuffer.TRIANGLE:
+                left = Math.min(0, Math.min(a, c));
+                right = Math.max(0, Math.max(a, c));
+                top = Math.min(0, Math.min(b, d));
+                bottom = Math.max(0, Math.max(b, d));
+                break;
+            case ShapeBuffer.PARABOLA:
+                left = -a;
+                right = a;
+                top = -b;
+                bottom = 0;
+                break;
+            case ShapeBuffer.TRAPEZOID:
+                left = Math.min(0, c);
+                right = Math.max(a, b);
+                top = 0;
+                bottom = d;
+                break;
+            default: // Линии и прямоугольники задаются смещением (a, b)
+                left = Math.min(0, a);
+                right = Math.max(0, a);
+                top = Math.min(0, b);
+                bottom = Math.max(0, b);
+                break;
+        }
+
+        frameLoX[i] = minX - left;
+        frameHiX[i] = maxX - right;
+        frameLoY[i] = minY - top;
+        frameHiY[i] = maxY - bottom;
+        double x = shapes.getX(i);
+        double y = shapes.getY(i);
+        if (frameLoX[i] > frameHiX[i]) {
+            frameLoX[i] = frameHiX[i] = x;
+        }
+        if (frameLoY[i] > frameHiY[i]) {
+            frameLoY[i] = frameHiY[i] = y;
+        }
+        loX[i] = Math.min(frameLoX[i], x);
+        hiX[i] = Math.max(frameHiX[i], x);
+        loY[i] = Math.min(frameLoY[i], y);
+        hiY[i] = Math.max(frameHiY[i], y);
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.canvas;
+
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+
+/**
+ * Буфер сгенерированных фигур, хранящий сцену в виде структуры массивов.
+ * <p>
+ * Каждая фигура описывается типом, опорной точкой (x, y), четырьмя параметрами геометрии
+ * (a, b, c, d), цветом и признаком заливки. Значения хранятся в параллельных массивах,
+ * поэтому сцену можно перерисовывать и анимировать без создания объекта на каждую фигуру.
+ * </p>
+ * Смысл параметров геометрии зависит от типа фигуры:
+ * <ul>
+ *     <li>{@link #LINE} — a, b: смещение конца линии относительно (x, y);</li>
+ *     <li>{@link #CIRCLE} — a: диаметр, (x, y) — левый верхний угол описанного квадрата;</li>
+ *     <li>{@link #RECTANGLE} — a, b: ширина и высота, (x, y) — левый верхний угол;</li>
+ *     <li>{@link #TRIANGLE} — (a, b) и (c, d): смещения второй и третьей вершин;</li>
+ *     <li>{@link #PARABOLA} — a: полуширина, b: высота, (x, y) — вершина параболы;</li>
+ *     <li>{@link #TRAPEZOID} — a: смещение второй вершины по X, b и c: смещения третьей и четвертой
+ *     вершин по X, d: высота трапеции.</li>
+ * </ul>
+ * <p>
+ * Буфер можно укоротить ({@link #truncate(int)}), не стирая отброшенные фигуры: пока в буфер
+ * не добавлено ничего нового, их можно вернуть вызовом {@link #restore(int)}.
+ * </p>
+ */
+public class ShapeBuffer {
+
+    public static final byte LINE = 0;
+    public static final byte CIRCLE = 1;
+    public static final byte RECTANGLE = 2;
+    public static final byte TRIANGLE = 3;
+    public static final byte PARABOLA = 4;
+    public static final byte TRAPEZOID = 5;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Примерный размер объекта цвета: генератор создает отдельный {@link Color} на каждую фигуру
+     * (около 32 байт), а после первой отрисовки цвет хранит еще и свой платформенный цвет (около 40 байт).
+     */
+    private static final int BYTES_PER_COLOR = 32 + 40;
+
+    /**
+     * Примерный размер одного элемента массивов буфера: шесть double, тип, признак заливки и ссылка на цвет.
+     */
+    private static final int BYTES_PER_SHAPE = 6 * Double.BYTES + 2 + 8;
+
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private boolean[] filled = new boolean[INITIAL_CAPACITY];
+    private Color[] colors = new Color[INITIAL_CAPACITY];
+    private double[] x = new double[INITIAL_CAPACITY];
+    private double[] y = new double[INITIAL_CAPACITY];
+    private double[] a = new double[INITIAL_CAPACITY];
+    private double[] b = new double[INITIAL_CAPACITY];
+    private double[] c = new double[INITIAL_CAPACITY];
+    private double[] d = new double[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Количество фигур в массивах, которые можно вернуть после {@link #truncate(int)}.
+     */
+    private int retained;
+
+    /**
+     * Добавляет фигуру в конец буфера.
+     *
+     * @param type  тип фигуры (одна из констант класса)
+     * @param x     координата X опорной точки
+     * @param y     координата Y опорной точки
+     * @param a     первый параметр геометрии
+     * @param b     второй параметр геометрии
+     * @param c     третий параметр геометрии
+     * @param d     четвертый параметр геометрии
+     * @param color цвет фигуры
+     * @param fill  закрашивать фигуру или только рисовать контур
+     * @return индекс добавленной фигуры
+     */
+    public int add(byte type, double x, double y, double a, double b, double c, double d, Color color, boolean fill) {
+        if (size == types.length) {
+            grow();
+        }
+        int i = size++;
+        this.types[i] = type;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.a[i] = a;
+        this.b[i] = b;
+        this.c[i] = c;
+        this.d[i] = d;
+        this.colors[i] = color;
+        this.filled[i] = fill;
+        retained = size;
+        return i;
+    }
+
+    /**
+     * Добавляет в конец буфера все фигуры другого буфера.
+     *
+     * @param other буфер, фигуры которого добавляются
+     * @return индекс первой добавленной фигуры
+     */
+    public int addAll(ShapeBuffer other) {
+        int from = size;
+        int n = other.size;
+        while (types.length < size + n) {
+            grow();
+        }
+        System.arraycopy(other.types, 0, types, from, n);
+        System.arraycopy(other.filled, 0, filled, from, n);
+        System.arraycopy(other.colors, 0, colors, from, n);
+        System.arraycopy(other.x, 0, x, from, n);
+        System.arraycopy(other.y, 0, y, from, n);
+        System.arraycopy(other.a, 0, a, from, n);
+        System.arraycopy(other.b, 0, b, from, n);
+        System.arraycopy(other.c, 0, c, from, n);
+        System.arraycopy(other.d, 0, d, from, n);
+        size += n;
+        retained = size;
+        return from;
+    }
+
+    /**
+     * Укорачивает буфер до заданного количества фигур. Отброшенные фигуры остаются в массивах
+     * и могут быть возвращены вызовом {@link #restore(int)}, пока в буфер не добавлены новые фигуры.
+     *
+     * @param newSize новое количество фигур, не больше текущего
+     * @throws IllegalArgumentException если размер отрицательный или больше текущего
+     */
+    public void truncate(int newSize) {
+        if (newSize < 0 || newSize > size) {
+            throw new IllegalArgumentException("Недопустимый размер буфера: " + newSize);
+        }
+        size = newSize;
+    }
+
+    /**
+     * Возвращает в буфер фигуры, отброшенные вызовом {@link #truncate(int)}.
+     *
+     * @param newSize новое количество фигур, не меньше текущего
+     * @throws IllegalArgumentException если столько фигур вернуть нельзя
+     */
+    public void restore(int newSize) {
+        if (newSize < size || newSize > retained) {
+            throw new IllegalArgumentException("Недопустимый размер буфера: " + newSize);
+        }
+        size = newSize;
+    }
+
+    /**
+     * Увеличивает емкость всех массивов буфера в два раза.
+     */
+    private void grow() {
+        int capacity = types.length * 2;
+        types = Arrays.copyOf(types, capacity);
+        filled = Arrays.copyOf(filled, capacity);
+        colors = Arrays.copyOf(colors, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        a = Arrays.copyOf(a, capacity);
+        b = Arrays.copyOf(b, capacity);
+        c = Arrays.copyOf(c, capacity);
+        d = Arrays.copyOf(d, capacity);
+    }
+
+    /**
+     * Создает независимую копию буфера с емкостью, равной количеству фигур.
+     *
+     * @return копия буфера
+     */
+    public ShapeBuffer copy() {
+        ShapeBuffer copy = new ShapeBuffer();
+        int capacity = Math.max(size, 1);
+        copy.types = Arrays.copyOf(types, capacity);
+        copy.filled = Arrays.copyOf(filled, capacity);
+        copy.colors = Arrays.copyOf(colors, capacity);
+        copy.x = Arrays.copyOf(x, capacity);
+        copy.y = Arrays.copyOf(y, capacity);
+        copy.a = Arrays.copyOf(a, capacity);
+        copy.b = Arrays.copyOf(b, capacity);
+        copy.c = Arrays.copyOf(c, capacity);
+        copy.d = Arrays.copyOf(d, capacity);
+        copy.size = size;
+        copy.retained = size;
+        return copy;
+    }
+
+    /**
+     * Оценивает объем памяти, занимаемый массивами буфера и объектами цветов фигур.
+     *
+     * @return примерный размер в байтах
+     */
+    public long estimatedBytes() {
+        // Общие цвета (черные линии) считаются отдельно для каждой фигуры, то есть с запасом
+        return (long) types.length * BYTES_PER_SHAPE + (long) retained * BYTES_PER_COLOR;
+    }
+
+    /**
+     * Перемещает опорную точку фигуры, сохраняя ее форму.
+     *
+     * @param i индекс фигуры
+     * @param x новая координата X опорной точки
+     * @param y новая координата Y опорной точки
+     */
+    public void setPosition(int i, double x, double y) {
+        this.x[i] = x;
+        this.y[i] = y;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte getType(int i) {
+        return types[i];
+    }
+
+    public boolean isFilled(int i) {
+        return filled[i];
+    }
+
+    public Color getColor(int i) {
+        return colors[i];
+    }
+
+    public double getX(int i) {
+        return x[i];
+    }
+
+    public double getY(int i) {
+        return y[i];
+    }
+
+    public double getA(int i) {
+        return a[i];
+    }
+
+    public double getB(int i) {
+        return b[i];
+    }
+
+    public double getC(int i) {
+        return c[i];
+    }
+
+    public double getD(int i) {
+        return d[i];
+    }
+}
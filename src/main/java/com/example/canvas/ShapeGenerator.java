@@ -1,6 +1,5 @@
 package com.example.canvas;
 
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 
 import java.util.Random;
@@ -10,18 +9,53 @@ import java.util.Random;
  * <p>
  * Поддерживает создание линий, кругов, прямоугольников, треугольников, парабол и трапеций.
  * Фигуры ограничиваются заданной областью и могут быть закрашены или не закрашены.
+ * Сгенерированные фигуры не рисуются сразу, а записываются в {@link ShapeBuffer},
+ * откуда их отрисовывает {@link ShapeRenderer}.
  * </p>
  */
 public class ShapeGenerator {
 
-    private final GraphicsContext gc;
+    private final ShapeBuffer shapes;
     private final Random random;
 
-    public ShapeGenerator(GraphicsContext gc) {
-        this.gc = gc;
+    /**
+     * Конструктор класса ShapeGenerator.
+     *
+     * @param shapes буфер, в который записываются сгенерированные фигуры
+     */
+    public ShapeGenerator(ShapeBuffer shapes) {
+        this.shapes = shapes;
         this.random = new Random();
     }
 
+    /**
+     * Конструктор класса ShapeGenerator с заданным зерном генератора случайных чисел.
+     * <p>
+     * При одинаковом зерне и параметрах генерации получается одинаковая сцена.
+     * </p>
+     *
+     * @param shapes буфер, в который записываются сгенерированные фигуры
+     * @param seed   зерно генератора случайных чисел
+     */
+    public ShapeGenerator(ShapeBuffer shapes, long seed) {
+        this.shapes = shapes;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Генерация фигур по полному набору параметров.
+     * <p>
+     * Зерно из параметров не используется: оно задается при создании генератора.
+     * </p>
+     *
+     * @param params параметры генерации
+     */
+    public void generateShapes(GenerationParams params) {
+        generateShapes(params.lines(), params.circles(), params.rectangles(), params.triangles(),
+                params.parabolas(), params.trapezoids(), params.fill(), params.scale(), params.density(),
+                params.minX(), params.maxX(), params.minY(), params.maxY());
+    }
+
     /**
      * Генерация заданного количества фигур различных типов.
      *
@@ -49,6 +83,50 @@ public class ShapeGenerator {
         if (trapezoids > 0) generateTrapezoids(trapezoids, fill, scale, minX, maxX, minY, maxY, density);
     }
 
+    /**
+     * Генерация заданного количества фигур одного типа.
+     * <p>
+     * Позволяет генерировать сцену частями: последовательные вызовы с тем же генератором
+     * дают ту же сцену, что и один вызов {@link #generateShapes(GenerationParams)} с суммарным количеством,
+     * если фигуры генерируются в том же порядке типов.
+     * </p>
+     *
+     * @param type   тип фигур (константа {@link ShapeBuffer})
+     * @param count  количество фигур
+     * @param params параметры генерации (количества фигур из параметров не используются)
+     */
+    public void generate(byte type, int count, GenerationParams params) {
+        boolean fill = params.fill();
+        double scale = params.scale();
+        double density = params.density();
+        int minX = params.minX();
+        int maxX = params.maxX();
+        int minY = params.minY();
+        int maxY = params.maxY();
+        switch (type) {
+            case ShapeBuffer.LINE:
+                generateLines(count, minX, maxX, minY, maxY, density, scale);
+                break;
+            case ShapeBuffer.CIRCLE:
+                generateCircles(count, fill, scale, minX, maxX, minY, maxY, density);
+                break;
+            case ShapeBuffer.RECTANGLE:
+                generateRectangles(count, fill, scale, minX, maxX, minY, maxY, density);
+                break;
+            case ShapeBuffer.TRIANGLE:
+                generateTriangles(count, fill, scale, minX, maxX, minY, maxY, density);
+                break;
+            case ShapeBuffer.PARABOLA:
+                generateParabolas(count, fill, scale, minX, maxX, minY, maxY, density);
+                break;
+            case ShapeBuffer.TRAPEZOID:
+                generateTrapezoids(count, fill, scale, minX, maxX, minY, maxY, density);
+                break;
+            default:
+                throw new IllegalArgumentException("Неизвестный тип фигуры: " + type);
+        }
+    }
+
     /**
      * Генерация линий.
      *
@@ -60,7 +138,6 @@ public class ShapeGenerator {
      * @param density плотность генерации координат
      */
     private void generateLines(int count, int minX, int maxX, int minY, int maxY, double density, double scale) {
-        gc.setStroke(Color.BLACK);
         double maxLength = 100 * scale; // Максимальная длина линии (например, 100 пикселей)
 
         for (int i = 0; i < count; i++) {
@@ -73,7 +150,7 @@ public class ShapeGenerator {
                 y2 = randomCoordinateWithDensity(minY, maxY, density);
             } while (Math.hypot(x2 - x1, y2 - y1) > maxLength);
 
-            gc.strokeLine(x1, y1, x2, y2);
+            shapes.add(ShapeBuffer.LINE, x1, y1, x2 - x1, y2 - y1, 0, 0, Color.BLACK, false);
         }
     }
 
@@ -107,14 +184,7 @@ public class ShapeGenerator {
                 y = maxY - size;  // Сдвигаем круг вверх, чтобы он не выходил за пределы
             }
 
-            // Отрисовка круга
-            if (fill) {
-                gc.setFill(randomColor());
-                gc.fillOval(x, y, size, size); // Закрашиваем круг
-            } else {
-                gc.setStroke(randomColor());
-                gc.strokeOval(x, y, size, size); // Рисуем контур круга
-            }
+            shapes.add(ShapeBuffer.CIRCLE, x, y, size, 0, 0, 0, randomColor(), fill);
         }
     }
 
@@ -165,14 +235,9 @@ public class ShapeGenerator {
                 height = maxY - y; // Сужаем высоту, чтобы не выйти за пределы
             }
 
-            // Отрисовка прямоугольника с учётом масштабирования
-            if (fill) {
-                gc.setFill(randomColor());
-                gc.fillRect(x * scale, y * scale, width * scale, height * scale);  // Закрашиваем прямоугольник
-            } else {
-                gc.setStroke(randomColor());
-                gc.strokeRect(x * scale, y * scale, width * scale, height * scale);  // Обводим прямоугольник
-            }
+            // Сохраняем прямоугольник с учётом масштабирования
+            shapes.add(ShapeBuffer.RECTANGLE, x * scale, y * scale, width * scale, height * scale, 0, 0,
+                    randomColor(), fill);
         }
     }
 
@@ -226,15 +291,7 @@ public class ShapeGenerator {
             x3 = Math.max(minX, Math.min(maxX, x3));
             y3 = Math.max(minY, Math.min(maxY, y3));
 
-            // Если фигура должна быть закрашена
-            if (fill) {
-                gc.setFill(randomColor());
-                gc.fillPolygon(new double[]{x1, x2, x3}, new double[]{y1, y2, y3}, 3);
-            } else {
-                // Если фигура только с контуром
-                gc.setStroke(randomColor());
-                gc.strokePolygon(new double[]{x1, x2, x3}, new double[]{y1, y2, y3}, 3);
-            }
+            shapes.add(ShapeBuffer.TRIANGLE, x1, y1, x2 - x1, y2 - y1, x3 - x1, y3 - y1, randomColor(), fill);
         }
     }
 
@@ -244,14 +301,14 @@ public class ShapeGenerator {
      * <p>
      * Метод генерирует параболы в пределах заданных координат (minX, maxX) и (minY, maxY).
      * Параболы имеют случайное расположение (центр), а также случайные размеры, которые регулируются масштабом (scale).
-     * Генерация осуществляется через вычисление множества точек, которые составляют кривую параболы.
-     * Количество точек (steps) определяет точность рисования параболы.
+     * Парабола хранится как вершина, полуширина и высота и рисуется одной квадратичной кривой Безье,
+     * поэтому точность не зависит от количества промежуточных точек.
      * В зависимости от флага fill, парабола может быть закрашена или нарисована только контуром.
      * <ul>
      *     <li>Парабола строится с использованием одного центрального положения (x, y), которое генерируется случайным образом.</li>
-     *     <li>Максимальная ширина и высота параболы зависят от масштаба и ограничены размерами холста, чтобы избежать выхода за его пределы.</li>
-     *     <li>Каждая парабола генерируется с помощью набора точек (xPoints, yPoints), которые равномерно распределены вдоль оси X в пределах выбранной ширины.</li>
-     *     <li>Значение t (от 0 до steps) определяет положение каждой точки на параболе и варьируется от -1 до 1, что позволяет создать симметричную кривую.</li>
+     *     <li>Максимальная ширина и высота параболы зависят от масштаба и ограничены расстоянием от вершины до границ области
+     *     (высота — до minY, куда направлены ветви), чтобы парабола не выходила за ее пределы.</li>
+     *     <li>Ветви параболы опускаются на высоту maxHeight на расстоянии maxWidth от вершины, что даёт симметричную кривую.</li>
      * </ul>
      * В зависимости от флага fill:
      * <ul>
@@ -277,44 +334,10 @@ public class ShapeGenerator {
 
             // Учитываем ограничения координат
             double maxWidth = Math.min(random.nextDouble() * 100 * scale, Math.min(x - minX, maxX - x));
-            double maxHeight = Math.min(random.nextDouble() * 50 * scale, maxY - y);
-
-            int steps = 100; // Точность параболы
-            double[] xPoints = new double[steps + 2];
-            double[] yPoints = new double[steps + 2];
-
-            // Генерация точек параболы
-            for (int t = 0; t <= steps; t++) {
-                double factor = (double) t / steps * 2 - 1; // Коэффициент от -1 до 1
-                xPoints[t] = x + maxWidth * factor;
-
-                // Уравнение перевернутой параболы (y = a * x^2 + b * x + c)
-                // Для простоты возьмем b = 0, a = -1 для перевернутой параболы.
-                yPoints[t] = y - (maxHeight * factor * factor); // Вниз направленная парабола
-            }
+            double maxHeight = Math.min(random.nextDouble() * 50 * scale, y - minY); // Ветви идут к minY
 
-            // Рисуем параболу
-            if (fill) {
-                // Закрашиваем параболу
-                gc.setFill(randomColor());
-                gc.beginPath();
-                gc.moveTo(xPoints[0], yPoints[0]);
-                for (int j = 1; j <= steps; j++) {
-                    gc.lineTo(xPoints[j], yPoints[j]);
-                }
-                gc.closePath();
-                gc.fill();
-            } else {
-                // Рисуем только контур
-                gc.setStroke(randomColor());
-                gc.setLineWidth(2);
-                gc.beginPath();
-                gc.moveTo(xPoints[0], yPoints[0]);
-                for (int j = 1; j <= steps; j++) {
-                    gc.lineTo(xPoints[j], yPoints[j]);
-                }
-                gc.stroke();
-            }
+            // Ветви параболы: y = y - maxHeight * t^2, где t от -1 до 1
+            shapes.add(ShapeBuffer.PARABOLA, x, y, maxWidth, maxHeight, 0, 0, randomColor(), fill);
         }
     }
 
@@ -359,20 +382,12 @@ public class ShapeGenerator {
 
             // Масштабируем размер трапеции
             double x2 = Math.min(x1 + random.nextDouble() * 60 * scale, maxX);
-            double y2 = y1;
             double x3 = Math.min(x1 + random.nextDouble() * 40 * scale, maxX);
             double y3 = Math.min(y1 + random.nextDouble() * 50 * scale, maxY);
             double x4 = Math.max(x1 - random.nextDouble() * 40 * scale, minX);
-            double y4 = y3;
-
-            // Если фигура должна быть закрашена
-            if (fill) {
-                gc.setFill(randomColor());
-                gc.fillPolygon(new double[]{x1, x2, x3, x4}, new double[]{y1, y2, y3, y4}, 4);
-            } else {
-                gc.setStroke(randomColor());
-                gc.strokePolygon(new double[]{x1, x2, x3, x4}, new double[]{y1, y2, y3, y4}, 4);
-            }
+
+            // y2 совпадает с y1, а y4 — с y3, поэтому достаточно хранить высоту трапеции
+            shapes.add(ShapeBuffer.TRAPEZOID, x1, y1, x2 - x1, x3 - x1, x4 - x1, y3 - y1, randomColor(), fill);
         }
     }
 
@@ -412,34 +427,4 @@ public class ShapeGenerator {
     private Color randomColor() {
         return Color.color(random.nextDouble(), random.nextDouble(), random.nextDouble());
     }
-
-    /**
-     * Подсвечивает область на холсте в заданных координатах.
-     * <p>
-     * Этот метод используется для визуального выделения прямоугольной области на холсте.
-     * Область рисуется с использованием полупрозрачного цвета и обводится синим контуром.
-     * Такой эффект может быть полезен для выделения определённых областей или объектов на холсте.
-     * </p>
-     *
-     * @param minX минимальная координата по оси X
-     * @param maxX максимальная координата по оси X
-     * @param minY минимальная координата по оси Y
-     * @param maxY максимальная координата по оси Y
-     */
-    public void highlightArea(int minX, int maxX, int minY, int maxY, double scale) {
-        // Масштабируем координаты и размеры области
-        double scaledMinX = minX * scale;
-        double scaledMaxX = maxX * scale;
-        double scaledMinY = minY * scale;
-        double scaledMaxY = maxY * scale;
-
-        // Рисуем закрашенную область
-        gc.setFill(Color.LIGHTBLUE.deriveColor(1, 1, 1, 0.3)); // Полупрозрачный цвет
-        gc.fillRect(scaledMinX, scaledMinY, scaledMaxX - scaledMinX, scaledMaxY - scaledMinY);
-
-        // Рисуем рамку вокруг области
-        gc.setStroke(Color.BLUE);
-        gc.setLineWidth(2);
-        gc.strokeRect(scaledMinX, scaledMinY, scaledMaxX - scaledMinX, scaledMaxY - scaledMinY);
-    }
 }
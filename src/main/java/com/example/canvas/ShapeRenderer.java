@@ -0,0 +1,157 @@
+package com.example.canvas;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+/**
+ * Отрисовка фигур из {@link ShapeBuffer} на графическом контексте.
+ * <p>
+ * Рендерер не хранит состояния: одна и та же сцена может быть отрисована повторно
+ * (при изменении масштаба или в каждом кадре анимации) без повторной генерации фигур.
+ * Цвет заливки и обводки устанавливается только при его изменении.
+ * Фигуры рисуются на {@link DrawingTarget}, поэтому отрисовку можно проверять без холста.
+ * </p>
+ */
+public final class ShapeRenderer {
+
+    private ShapeRenderer() {
+    }
+
+    /**
+     * Рисует фигуры буфера с индексами из диапазона [from, to).
+     *
+     * @param gc     графический контекст для рисования
+     * @param shapes буфер фигур
+     * @param from   индекс первой фигуры (включительно)
+     * @param to     индекс последней фигуры (не включительно)
+     */
+    public static void draw(GraphicsContext gc, ShapeBuffer shapes, int from, int to) {
+        draw(new GraphicsContextTarget(gc), shapes, from, to);
+    }
+
+    /**
+     * Рисует фигуры буфера с индексами из диапазона [from, to) на заданной поверхности.
+     *
+     * @param gc     поверхность для рисования
+     * @param shapes буфер фигур
+     * @param from   индекс первой фигуры (включительно)
+     * @param to     индекс последней фигуры (не включительно)
+     */
+    public static void draw(DrawingTarget gc, ShapeBuffer shapes, int from, int to) {
+        double[] xPoints = new double[4];
+        double[] yPoints = new double[4];
+        Color fillColor = null;
+        Color strokeColor = null;
+
+        gc.setLineWidth(2);
+        for (int i = from; i < to; i++) {
+            boolean fill = shapes.isFilled(i);
+            Color color = shapes.getColor(i);
+            if (fill && color != fillColor) {
+                gc.setFill(color);
+                fillColor = color;
+            } else if (!fill && color != strokeColor) {
+                gc.setStroke(color);
+                strokeColor = color;
+            }
+
+            double x = shapes.getX(i);
+            double y = shapes.getY(i);
+            double a = shapes.getA(i);
+            double b = shapes.getB(i);
+            switch (shapes.getType(i)) {
+                case ShapeBuffer.LINE:
+                    gc.strokeLine(x, y, x + a, y + b);
+                    break;
+                case ShapeBuffer.CIRCLE:
+                    if (fill) {
+                        gc.fillOval(x, y, a, a);
+                    } else {
+                        gc.strokeOval(x, y, a, a);
+                    }
+                    break;
+                case ShapeBuffer.RECTANGLE:
+                    if (fill) {
+                        gc.fillRect(x, y, a, b);
+                    } else {
+                        gc.strokeRect(x, y, a, b);
+                    }
+                    break;
+                case ShapeBuffer.TRIANGLE:
+                    xPoints[0] = x;
+                    yPoints[0] = y;
+                    xPoints[1] = x + a;
+                    yPoints[1] = y + b;
+                    xPoints[2] = x + shapes.getC(i);
+                    yPoints[2] = y + shapes.getD(i);
+                    if (fill) {
+                        gc.fillPolygon(xPoints, yPoints, 3);
+                    } else {
+                        gc.strokePolygon(xPoints, yPoints, 3);
+                    }
+                    break;
+                case ShapeBuffer.PARABOLA:
+                    // Квадратичная кривая Безье с контрольной точкой (x, y + b) точно совпадает
+                    // с параболой, проходящей через (x - a, y - b), (x, y) и (x + a, y - b)
+                    gc.beginPath();
+                    gc.moveTo(x - a, y - b);
+                    gc.quadraticCurveTo(x, y + b, x + a, y - b);
+                    if (fill) {
+                        gc.closePath();
+                        gc.fill();
+                    } else {
+                        gc.stroke();
+                    }
+                    break;
+                case ShapeBuffer.TRAPEZOID:
+                    double bottom = y + shapes.getD(i);
+                    xPoints[0] = x;
+                    yPoints[0] = y;
+                    xPoints[1] = x + a;
+                    yPoints[1] = y;
+                    xPoints[2] = x + b;
+                    yPoints[2] = bottom;
+                    xPoints[3] = x + shapes.getC(i);
+                    yPoints[3] = bottom;
+                    if (fill) {
+                        gc.fillPolygon(xPoints, yPoints, 4);
+                    } else {
+                        gc.strokePolygon(xPoints, yPoints, 4);
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Неизвестный тип фигуры: " + shapes.getType(i));
+            }
+        }
+    }
+
+    /**
+     * Подсвечивает область на холсте в заданных координатах.
+     * <p>
+     * Область рисуется с использованием полупрозрачного цвета и обводится синим контуром.
+     * </p>
+     *
+     * @param gc    графический контекст для рисования
+     * @param minX  минимальная координата по оси X
+     * @param maxX  максимальная координата по оси X
+     * @param minY  минимальная координата по оси Y
+     * @param maxY  максимальная координата по оси Y
+     * @param scale масштаб, применяемый к координатам области
+     */
+    public static void highlightArea(GraphicsContext gc, int minX, int maxX, int minY, int maxY, double scale) {
+        // Масштабируем координаты и размеры области
+        double scaledMinX = minX * scale;
+        double scaledMaxX = maxX * scale;
+        double scaledMinY = minY * scale;
+        double scaledMaxY = maxY * scale;
+
+        // Рисуем закрашенную область
+        gc.setFill(Color.LIGHTBLUE.deriveColor(1, 1, 1, 0.3)); // Полупрозрачный цвет
+        gc.fillRect(scaledMinX, scaledMinY, scaledMaxX - scaledMinX, scaledMaxY - scaledMinY);
+
+        // Рисуем рамку вокруг области
+        gc.setStroke(Color.BLUE);
+        gc.setLineWidth(2);
+        gc.strokeRect(scaledMinX, scaledMinY, scaledMaxX - scaledMinX, scaledMaxY - scaledMinY);
+    }
+}
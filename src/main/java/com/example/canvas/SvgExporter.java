@@ -0,0 +1,298 @@
+package com.example.canvas;
+
+import javafx.scene.paint.Color;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Экспорт сцены в векторный формат SVG.
+ * <p>
+ * Файл записывается за один проход напрямую из {@link ShapeBuffer} через буферизованный поток,
+ * без построения DOM, поэтому объем памяти не зависит от количества фигур.
+ * Одинаковые цвета выносятся в общие CSS-классы; блок стилей записывается в конце файла,
+ * когда все цвета уже известны (стили SVG действуют на весь документ независимо от положения).
+ * Количество классов ограничено {@link #MAX_STYLE_CLASSES}: цвета сверх лимита записываются
+ * прямо в атрибуты фигур. Парабола записывается одной квадратичной кривой Безье.
+ * </p>
+ */
+public class SvgExporter {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_STYLE_CLASSES = 4096;
+
+    private final ShapeBuffer shapes;
+    private final double width;
+    private final double height;
+
+    private boolean areaVisible = false;
+    private int areaMinX;
+    private int areaMaxX;
+    private int areaMinY;
+    private int areaMaxY;
+    private double scale = 1.0;
+    private boolean gridVisible = false;
+
+    /**
+     * Классы стилей: ключ — цвет RGB и признак заливки, значение — номер класса.
+     */
+    private final Map<Long, Integer> styleClasses = new HashMap<>();
+    private final StringBuilder line = new StringBuilder(128);
+
+    /**
+     * Конструктор класса SvgExporter.
+     *
+     * @param shapes фигуры сцены; буфер не должен изменяться во время экспорта
+     * @param width  ширина изображения
+     * @param height высота изображения
+     */
+    public SvgExporter(ShapeBuffer shapes, double width, double height) {
+        this.shapes = shapes;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Задает подсвечиваемую область, которая будет выведена под фигурами.
+     *
+     * @param minX  минимальная координата по оси X
+     * @param maxX  максимальная координата по оси X
+     * @param minY  минимальная координата по оси Y
+     * @param maxY  максимальная координата по оси Y
+     * @param scale масштаб, применяемый к координатам области и шагу сетки
+     */
+    public void setArea(int minX, int maxX, int minY, int maxY, double scale) {
+        this.areaVisible = true;
+        this.areaMinX = minX;
+        this.areaMaxX = maxX;
+        this.areaMinY = minY;
+        this.areaMaxY = maxY;
+        this.scale = scale;
+    }
+
+    public void setGridVisible(boolean gridVisible) {
+        this.gridVisible = gridVisible;
+    }
+
+    /**
+     * Записывает сцену в файл SVG.
+     *
+     * @param file путь к файлу
+     * @throws IOException если запись не удалась
+     */
+    public void export(Path file) throws IOException {
+        try (Writer out = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            write(out);
+        }
+    }
+
+    /**
+     * Записывает сцену в SVG в переданный поток.
+     *
+     * @param out поток для записи
+     * @throws IOException если запись не удалась
+     */
+    public void write(Writer out) throws IOException {
+        styleClasses.clear();
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        line.setLength(0);
+        line.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"");
+        appendNumber(width).append("\" height=\"");
+        appendNumber(height).append("\" viewBox=\"0 0 ");
+        appendNumber(width).append(' ');
+        appendNumber(height).append("\">\n");
+        out.append(line);
+
+        // Фон, сетка и подсвеченная область, как на холсте
+        out.write("<rect width=\"100%\" height=\"100%\" fill=\"#ffffff\"/>\n");
+        if (gridVisible) {
+            line.setLength(0);
+            line.append("<defs><pattern id=\"grid\" patternUnits=\"userSpaceOnUse\" width=\"");
+            appendNumber(20 * scale).append("\" height=\"");
+            appendNumber(20 * scale).append("\"><path d=\"M0 0V");
+            appendNumber(20 * scale).append("M0 0H");
+            appendNumber(20 * scale).append("\" fill=\"none\" stroke=\"#d3d3d3\" stroke-width=\"0.5\"/></pattern></defs>\n");
+            line.append("<rect width=\"100%\" height=\"100%\" fill=\"url(#grid)\"/>\n");
+            out.append(line);
+        }
+        if (areaVisible) {
+            line.setLength(0);
+            line.append("<rect x=\"");
+            appendNumber(areaMinX * scale).append("\" y=\"");
+            appendNumber(areaMinY * scale).append("\" width=\"");
+            appendNumber((areaMaxX - areaMinX) * scale).append("\" height=\"");
+            appendNumber((areaMaxY - areaMinY) * scale);
+            line.append("\" fill=\"#add8e6\" fill-opacity=\"0.3\" stroke=\"#0000ff\" stroke-width=\"2\"/>\n");
+            out.append(line);
+        }
+
+        out.write("<g stroke-width=\"2\">\n");
+        for (int i = 0; i < shapes.size(); i++) {
+            line.setLength(0);
+            appendShape(i);
+            out.append(line);
+        }
+        out.write("</g>\n");
+
+        writeStyles(out);
+        out.write("</svg>\n");
+    }
+
+    /**
+     * Добавляет в строку элемент SVG для одной фигуры.
+     */
+    private void appendShape(int i) {
+        double x = shapes.getX(i);
+        double y = shapes.getY(i);
+        double a = shapes.getA(i);
+        double b = shapes.getB(i);
+        boolean fill = shapes.isFilled(i);
+        switch (shapes.getType(i)) {
+            case ShapeBuffer.LINE:
+                line.append("<line x1=\"");
+                appendNumber(x).append("\" y1=\"");
+                appendNumber(y).append("\" x2=\"");
+                appendNumber(x + a).append("\" y2=\"");
+                appendNumber(y + b).append('"');
+                break;
+            case ShapeBuffer.CIRCLE:
+                line.append("<circle cx=\"");
+                appendNumber(x + a / 2).append("\" cy=\"");
+                appendNumber(y + a / 2).append("\" r=\"");
+                appendNumber(a / 2).append('"');
+                break;
+            case ShapeBuffer.RECTANGLE:
+                line.append("<rect x=\"");
+                appendNumber(x).append("\" y=\"");
+                appendNumber(y).append("\" width=\"");
+                appendNumber(a).append("\" height=\"");
+                appendNumber(b).append('"');
+                break;
+            case ShapeBuffer.TRIANGLE:
+                line.append("<polygon points=\"");
+                appendPoint(x, y).append(' ');
+                appendPoint(x + a, y + b).append(' ');
+                appendPoint(x + shapes.getC(i), y + shapes.getD(i)).append('"');
+                break;
+            case ShapeBuffer.PARABOLA:
+                line.append("<path d=\"M");
+                appendPoint(x - a, y - b).append('Q');
+                appendPoint(x, y + b).append(' ');
+                appendPoint(x + a, y - b);
+                line.append(fill ? "Z\"" : "\"");
+                break;
+            case ShapeBuffer.TRAPEZOID:
+                double bottom = y + shapes.getD(i);
+                line.append("<polygon points=\"");
+                appendPoint(x, y).append(' ');
+                appendPoint(x + a, y).append(' ');
+                appendPoint(x + b, bottom).append(' ');
+                appendPoint(x + shapes.getC(i), bottom).append('"');
+                break;
+            default:
+                throw new IllegalStateException("Неизвестный тип фигуры: " + shapes.getType(i));
+        }
+        appendStyle(shapes.getColor(i), fill);
+        line.append("/>\n");
+    }
+
+    /**
+     * Добавляет ссылку на класс стиля цвета, а если лимит классов исчерпан — сам цвет.
+     */
+    private void appendStyle(Color color, boolean fill) {
+        int rgb = toRgb(color);
+        long key = (fill ? 1L << 32 : 0L) | rgb;
+        Integer styleClass = styleClasses.get(key);
+        if (styleClass == null && styleClasses.size() < MAX_STYLE_CLASSES) {
+            styleClass = styleClasses.size();
+            styleClasses.put(key, styleClass);
+        }
+        if (styleClass != null) {
+            line.append(" class=\"c").append(styleClass).append('"');
+        } else if (fill) {
+            line.append(" fill=\"");
+            appendColor(rgb).append('"');
+        } else {
+            line.append(" fill=\"none\" stroke=\"");
+            appendColor(rgb).append('"');
+        }
+        if (color.getOpacity() < 1) {
+            line.append(fill ? " fill-opacity=\"" : " stroke-opacity=\"");
+            appendNumber(color.getOpacity()).append('"');
+        }
+    }
+
+    /**
+     * Записывает блок стилей со всеми использованными классами цветов.
+     */
+    private void writeStyles(Writer out) throws IOException {
+        out.write("<style>\n");
+        for (Map.Entry<Long, Integer> entry : styleClasses.entrySet()) {
+            long key = entry.getKey();
+            int rgb = (int) key;
+            line.setLength(0);
+            line.append(".c").append(entry.getValue());
+            if ((key >>> 32) != 0) {
+                line.append("{fill:");
+                appendColor(rgb).append("}\n");
+            } else {
+                line.append("{fill:none;stroke:");
+                appendColor(rgb).append("}\n");
+            }
+            out.append(line);
+        }
+        out.write("</style>\n");
+    }
+
+    private static int toRgb(Color color) {
+        int r = (int) Math.round(color.getRed() * 255);
+        int g = (int) Math.round(color.getGreen() * 255);
+        int b = (int) Math.round(color.getBlue() * 255);
+        return (r << 16) | (g << 8) | b;
+    }
+
+    private StringBuilder appendColor(int rgb) {
+        String hex = Integer.toHexString(rgb);
+        line.append('#');
+        for (int i = hex.length(); i < 6; i++) {
+            line.append('0');
+        }
+        return line.append(hex);
+    }
+
+    private StringBuilder appendPoint(double x, double y) {
+        appendNumber(x).append(',');
+        return appendNumber(y);
+    }
+
+    /**
+     * Добавляет число с точностью до сотых, без лишних нулей и без зависимости от локали.
+     */
+    private StringBuilder appendNumber(double value) {
+        long hundredths = Math.round(value * 100);
+        if (hundredths < 0) {
+            line.append('-');
+            hundredths = -hundredths;
+        }
+        line.append(hundredths / 100);
+        long fraction = hundredths % 100;
+        if (fraction != 0) {
+            line.append('.');
+            if (fraction < 10) {
+                line.append('0');
+                line.append(fraction);
+            } else {
+                line.append(fraction % 10 == 0 ? fraction / 10 : fraction);
+            }
+        }
+        return line;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.canvas;
+
+import javafx.scene.paint.Color;
+
+/**
+ * Поверхность рисования для тестов: ничего не рисует, а считает вызовы
+ * и запоминает ограничивающий прямоугольник всего нарисованного.
+ */
+class CountingDrawingTarget implements DrawingTarget {
+
+    int lineWidthChanges;
+    int fillChanges;
+    int strokeChanges;
+    int shapeCalls; // Вызовы, рисующие фигуру целиком: линия, овал, прямоугольник, многоугольник, fill/stroke пути
+    int pathCalls; // Построение пути: beginPath, moveTo, quadraticCurveTo, closePath
+
+    double minX = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+
+    private double pathX;
+    private double pathY;
+
+    void reset() {
+        lineWidthChanges = fillChanges = strokeChanges = shapeCalls = pathCalls = 0;
+        minX = minY = Double.POSITIVE_INFINITY;
+        maxX = maxY = Double.NEGATIVE_INFINITY;
+    }
+
+    private void include(double x, double y) {
+        minX = Math.min(minX, x);
+        maxX = Math.max(maxX, x);
+        minY = Math.min(minY, y);
+        maxY = Math.max(maxY, y);
+    }
+
+    @Override
+    public void setLineWidth(double width) {
+        lineWidthChanges++;
+    }
+
+    @Override
+    public void setFill(Color color) {
+        fillChanges++;
+    }
+
+    @Override
+    public void setStroke(Color color) {
+        strokeChanges++;
+    }
+
+    @Override
+    public void strokeLine(double x1, double y1, double x2, double y2) {
+        shapeCalls++;
+        include(x1, y1);
+        include(x2, y2);
+    }
+
+    @Override
+    public void fillOval(double x, double y, double w, double h) {
+        strokeOval(x, y, w, h);
+    }
+
+    @Override
+    public void strokeOval(double x, double y, double w, double h) {
+        strokeRect(x, y, w, h);
+    }
+
+    @Override
+    public void fillRect(double x, double y, double w, double h) {
+        strokeRect(x, y, w, h);
+    }
+
+    @Override
+    public void strokeRect(double x, double y, double w, double h) {
+        shapeCalls++;
+        include(x, y);
+        include(x + w, y + h);
+    }
+
+    @Override
+    public void fillPolygon(double[] xPoints, double[] yPoints, int nPoints) {
+        strokePolygon(xPoints, yPoints, nPoints);
+    }
+
+    @Override
+    public void strokePolygon(double[] xPoints, double[] yPoints, int nPoints) {
+        shapeCalls++;
+        for (int i = 0; i < nPoints; i++) {
+            include(xPoints[i], yPoints[i]);
+        }
+    }
+
+    @Override
+    public void beginPath() {
+        pathCalls++;
+    }
+
+    @Override
+    public void moveTo(double x, double y) {
+        pathCalls++;
+        pathX = x;
+        pathY = y;
+        include(x, y);
+    }
+
+    @Override
+    public void quadraticCurveTo(double xc, double yc, double x1, double y1) {
+        pathCalls++;
+        // Учитывается сама кривая, а не контрольная точка: экстремум кривой Безье по каждой оси
+        include(x1, y1);
+        includeQuadraticExtremum(pathX, xc, x1, pathY, yc, y1);
+        pathX = x1;
+        pathY = y1;
+    }
+
+    private void includeQuadraticExtremum(double x0, double xc, double x1, double y0, double yc, double y1) {
+        double tx = extremumParameter(x0, xc, x1);
+        double ty = extremumParameter(y0, yc, y1);
+        include(bezier(x0, xc, x1, tx), bezier(y0, yc, y1, tx));
+        include(bezier(x0, xc, x1, ty), bezier(y0, yc, y1, ty));
+    }
+
+    private static double extremumParameter(double p0, double pc, double p1) {
+        double denominator = p0 - 2 * pc + p1;
+        if (denominator == 0) {
+            return 0;
+        }
+        return Math.max(0, Math.min(1, (p0 - pc) / denominator));
+    }
+
+    private static double bezier(double p0, double pc, double p1, double t) {
+        double u = 1 - t;
+        return u * u * p0 + 2 * u * t * pc + t * t * p1;
+    }
+
+    @Override
+    public void closePath() {
+        pathCalls++;
+    }
+
+    @Override
+    public void fill() {
+        shapeCalls++;
+    }
+
+    @Override
+    public void stroke() {
+        shapeCalls++;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.canvas;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверки тепловой карты: все фигуры попадают в ячейки в тех же координатах, в которых они рисуются.
+ */
+class DensityHeatmapTest {
+
+    private static final int COUNT = 10_000;
+
+    @Test
+    void binsEveryShapeOfScaledScene() {
+        // Прямоугольники хранятся умноженными на масштаб генерации и выходят за область 100..700
+        GenerationParams params = new GenerationParams(0, 0, COUNT, 0, 0, 0, true, 1.5, 15, 100, 700, 50, 450, 3);
+        ShapeBuffer shapes = new ShapeBuffer();
+        new ShapeGenerator(shapes, params.seed()).generateShapes(params);
+
+        double[] bounds = DensityHeatmap.bounds(shapes, params.minX(), params.maxX(), params.minY(), params.maxY());
+        for (int i = 0; i < shapes.size(); i++) {
+            double centerX = shapes.getX(i) + shapes.getA(i) / 2;
+            double centerY = shapes.getY(i) + shapes.getB(i) / 2;
+            assertTrue(centerX >= bounds[0] && centerX <= bounds[1], "центр X " + centerX);
+            assertTrue(centerY >= bounds[2] && centerY <= bounds[3], "центр Y " + centerY);
+        }
+        assertTrue(bounds[1] > params.maxX(), "область должна расшириться до масштабированных прямоугольников");
+
+        int[] bins = DensityHeatmap.bin(shapes, bounds[0], bounds[1], bounds[2], bounds[3], 300, 200);
+        assertEquals(COUNT, Arrays.stream(bins).sum());
+    }
+
+    @Test
+    void binsShapeIntoCellWhereItIsDrawn() {
+        ShapeBuffer shapes = new ShapeBuffer();
+        shapes.add(ShapeBuffer.RECTANGLE, 150, 60, 20, 10, 0, 0, javafx.scene.paint.Color.RED, true); // центр (160, 65)
+        shapes.add(ShapeBuffer.LINE, 0, 0, 5, 5, 0, 0, javafx.scene.paint.Color.BLACK, false); // угол области
+        shapes.add(ShapeBuffer.LINE, 200, 100, 5, 5, 0, 0, javafx.scene.paint.Color.BLACK, false); // граница области
+
+        int[] bins = DensityHeatmap.bin(shapes, 0, 200, 0, 100, 20, 10);
+        assertEquals(1, bins[6 * 20 + 16]);
+        assertEquals(1, bins[0]);
+        assertEquals(1, bins[9 * 20 + 19]);
+        assertEquals(3, Arrays.stream(bins).sum());
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.canvas;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверки производительности генерации и отрисовки, выполняемые на этапе {@code verify}.
+ * <p>
+ * Для каждого типа фигур измеряется лучшее время из нескольких прогонов после прогрева
+ * и объем памяти, выделенной текущим потоком. Отрисовка выполняется на {@link CountingDrawingTarget},
+ * поэтому измеряются только расходы самого рендерера, без холста и дисплея.
+ * Пороги заданы с большим запасом и ловят только заметные регрессии; на медленных машинах
+ * их можно ослабить множителем {@code -Dcanvas.perf.tolerance}.
+ * </p>
+ */
+class RenderPerformanceIT {
+
+    private static final byte[] TYPES = {
+            ShapeBuffer.LINE, ShapeBuffer.CIRCLE, ShapeBuffer.RECTANGLE,
+            ShapeBuffer.TRIANGLE, ShapeBuffer.PARABOLA, ShapeBuffer.TRAPEZOID
+    };
+    private static final int COUNT = 200_000;
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 5;
+
+    private static final double TOLERANCE = Double.parseDouble(System.getProperty("canvas.perf.tolerance", "1"));
+
+    /**
+     * Пороги времени на одну фигуру, в наносекундах.
+     */
+    private static final double MAX_GENERATE_NANOS_PER_SHAPE = 2_000 * TOLERANCE;
+    private static final double MAX_DRAW_NANOS_PER_SHAPE = 200 * TOLERANCE;
+
+    /**
+     * Бюджет памяти: генерация — цвет и рост массивов буфера на фигуру, отрисовка — постоянный объем на вызов.
+     */
+    private static final long MAX_GENERATE_BYTES_PER_SHAPE = 512;
+    private static final long MAX_DRAW_BYTES_PER_CALL = 16 * 1024;
+
+    private static final GenerationParams PARAMS =
+            new GenerationParams(0, 0, 0, 0, 0, 0, true, 1.0, 15, 0, 800, 0, 600, 1);
+
+    @Test
+    void generationStaysWithinBudget() {
+        for (byte type : TYPES) {
+            long bestNanos = Long.MAX_VALUE;
+            long bytes = Long.MAX_VALUE;
+            for (int run = 0; run < WARMUP_RUNS + MEASURED_RUNS; run++) {
+                ShapeBuffer shapes = new ShapeBuffer();
+                ShapeGenerator generator = new ShapeGenerator(shapes, run);
+                long allocatedBefore = allocatedBytes();
+                long start = System.nanoTime();
+                generator.generate(type, COUNT, PARAMS);
+                long elapsed = System.nanoTime() - start;
+                if (run >= WARMUP_RUNS) {
+                    bestNanos = Math.min(bestNanos, elapsed);
+                    bytes = Math.min(bytes, allocatedBytes() - allocatedBefore);
+                }
+            }
+            double nanosPerShape = (double) bestNanos / COUNT;
+            assertTrue(nanosPerShape <= MAX_GENERATE_NANOS_PER_SHAPE,
+                    "Генерация типа " + type + ": " + nanosPerShape + " нс на фигуру");
+            assertTrue(bytes <= MAX_GENERATE_BYTES_PER_SHAPE * COUNT,
+                    "Генерация типа " + type + ": " + bytes / COUNT + " байт на фигуру");
+        }
+    }
+
+    @Test
+    void drawingStaysWithinBudget() {
+        CountingDrawingTarget target = new CountingDrawingTarget();
+        for (byte type : TYPES) {
+            ShapeBuffer shapes = new ShapeBuffer();
+            new ShapeGenerator(shapes, type).generate(type, COUNT, PARAMS);
+
+            long bestNanos = Long.MAX_VALUE;
+            long bytes = Long.MAX_VALUE;
+            for (int run = 0; run < WARMUP_RUNS + MEASURED_RUNS; run++) {
+                target.reset();
+                long allocatedBefore = allocatedBytes();
+                long start = System.nanoTime();
+                ShapeRenderer.draw(target, shapes, 0, shapes.size());
+                long elapsed = System.nanoTime() - start;
+                if (run >= WARMUP_RUNS) {
+                    bestNanos = Math.min(bestNanos, elapsed);
+                    bytes = Math.min(bytes, allocatedBytes() - allocatedBefore);
+                }
+            }
+            double nanosPerShape = (double) bestNanos / COUNT;
+            assertTrue(nanosPerShape <= MAX_DRAW_NANOS_PER_SHAPE,
+                    "Отрисовка типа " + type + ": " + nanosPerShape + " нс на фигуру");
+            assertTrue(bytes <= MAX_DRAW_BYTES_PER_CALL,
+                    "Отрисовка типа " + type + ": выделено " + bytes + " байт");
+        }
+    }
+
+    /**
+     * Возвращает объем памяти, выделенной текущим потоком с его запуска.
+     */
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
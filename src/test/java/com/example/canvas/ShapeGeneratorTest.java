@@ -0,0 +1,90 @@
+package com.example.canvas;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверки генератора фигур: фигуры не выходят за пределы области, а генерация воспроизводима по зерну.
+ */
+class ShapeGeneratorTest {
+
+    private static final byte[] TYPES = {
+            ShapeBuffer.LINE, ShapeBuffer.CIRCLE, ShapeBuffer.RECTANGLE,
+            ShapeBuffer.TRIANGLE, ShapeBuffer.PARABOLA, ShapeBuffer.TRAPEZOID
+    };
+    private static final int COUNT = 20_000;
+    private static final double EPSILON = 1e-9;
+
+    private static GenerationParams params(boolean fill, double scale, double density) {
+        return new GenerationParams(0, 0, 0, 0, 0, 0, fill, scale, density, 100, 700, 50, 450, 42);
+    }
+
+    @Test
+    void shapesStayInsideArea() {
+        for (byte type : TYPES) {
+            for (double scale : new double[]{1.0, 1.5}) {
+                for (double density : new double[]{1, 15, 50}) {
+                    GenerationParams params = params(type % 2 == 0, scale, density);
+                    ShapeBuffer shapes = new ShapeBuffer();
+                    new ShapeGenerator(shapes, params.seed()).generate(type, COUNT, params);
+                    CountingDrawingTarget target = new CountingDrawingTarget();
+                    ShapeRenderer.draw(target, shapes, 0, shapes.size());
+
+                    // Прямоугольники хранятся в масштабированных координатах, как и подсвеченная область на холсте
+                    double k = type == ShapeBuffer.RECTANGLE ? scale : 1.0;
+                    String message = "тип " + type + ", масштаб " + scale + ", кучность " + density;
+                    assertEquals(COUNT, shapes.size(), message);
+                    assertTrue(target.minX >= params.minX() * k - EPSILON, message + ": minX " + target.minX);
+                    assertTrue(target.maxX <= params.maxX() * k + EPSILON, message + ": maxX " + target.maxX);
+                    assertTrue(target.minY >= params.minY() * k - EPSILON, message + ": minY " + target.minY);
+                    assertTrue(target.maxY <= params.maxY() * k + EPSILON, message + ": maxY " + target.maxY);
+                }
+            }
+        }
+    }
+
+    @Test
+    void sameSeedProducesSameScene() {
+        GenerationParams params = new GenerationParams(500, 500, 500, 500, 500, 500, true, 1.2, 20, 0, 800, 0, 600, 7);
+        ShapeBuffer first = new ShapeBuffer();
+        ShapeBuffer second = new ShapeBuffer();
+        new ShapeGenerator(first, params.seed()).generateShapes(params);
+        new ShapeGenerator(second, params.seed()).generateShapes(params);
+        assertSameScene(first, second);
+    }
+
+    @Test
+    void chunkedGenerationMatchesSingleCall() {
+        GenerationParams params = new GenerationParams(3000, 2000, 0, 1000, 2500, 10, false, 1.0, 15, 0, 800, 0, 600, 11);
+        ShapeBuffer whole = new ShapeBuffer();
+        new ShapeGenerator(whole, params.seed()).generateShapes(params);
+
+        ShapeBuffer chunked = new ShapeBuffer();
+        ShapeGenerator generator = new ShapeGenerator(chunked, params.seed());
+        int[] counts = {params.lines(), params.circles(), params.rectangles(),
+                params.triangles(), params.parabolas(), params.trapezoids()};
+        for (int t = 0; t < TYPES.length; t++) {
+            for (int left = counts[t]; left > 0; left -= 700) {
+                generator.generate(TYPES[t], Math.min(700, left), params);
+            }
+        }
+        assertSameScene(whole, chunked);
+    }
+
+    private static void assertSameScene(ShapeBuffer expected, ShapeBuffer actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getType(i), actual.getType(i));
+            assertEquals(expected.isFilled(i), actual.isFilled(i));
+            assertEquals(expected.getColor(i), actual.getColor(i));
+            assertEquals(expected.getX(i), actual.getX(i));
+            assertEquals(expected.getY(i), actual.getY(i));
+            assertEquals(expected.getA(i), actual.getA(i));
+            assertEquals(expected.getB(i), actual.getB(i));
+            assertEquals(expected.getC(i), actual.getC(i));
+            assertEquals(expected.getD(i), actual.getD(i));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.canvas;
+
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Проверки количества вызовов рисования: одна операция на фигуру и смена цвета только при его изменении.
+ */
+class ShapeRendererTest {
+
+    private static final int COUNT = 1000;
+
+    private static ShapeBuffer buffer(byte type, boolean fill, Color... colors) {
+        ShapeBuffer shapes = new ShapeBuffer();
+        for (int i = 0; i < COUNT; i++) {
+            shapes.add(type, 10 + i % 50, 20 + i % 30, 5, 6, 7, 8, colors[i % colors.length], fill);
+        }
+        return shapes;
+    }
+
+    @Test
+    void drawsOneCallPerShape() {
+        byte[] types = {ShapeBuffer.LINE, ShapeBuffer.CIRCLE, ShapeBuffer.RECTANGLE,
+                ShapeBuffer.TRIANGLE, ShapeBuffer.TRAPEZOID};
+        for (byte type : types) {
+            for (boolean fill : new boolean[]{false, true}) {
+                CountingDrawingTarget target = new CountingDrawingTarget();
+                ShapeRenderer.draw(target, buffer(type, fill, Color.RED), 0, COUNT);
+                assertEquals(COUNT, target.shapeCalls, "тип " + type);
+                assertEquals(0, target.pathCalls, "тип " + type);
+                assertEquals(1, target.lineWidthChanges, "тип " + type);
+            }
+        }
+    }
+
+    @Test
+    void drawsParabolaAsSingleCurve() {
+        CountingDrawingTarget target = new CountingDrawingTarget();
+        ShapeRenderer.draw(target, buffer(ShapeBuffer.PARABOLA, false, Color.RED), 0, COUNT);
+        assertEquals(COUNT, target.shapeCalls);
+        assertEquals(3 * COUNT, target.pathCalls); // beginPath, moveTo, quadraticCurveTo
+
+        target.reset();
+        ShapeRenderer.draw(target, buffer(ShapeBuffer.PARABOLA, true, Color.RED), 0, COUNT);
+        assertEquals(COUNT, target.shapeCalls);
+        assertEquals(4 * COUNT, target.pathCalls); // и closePath для заливки
+    }
+
+    @Test
+    void setsColorOnlyWhenItChanges() {
+        CountingDrawingTarget target = new CountingDrawingTarget();
+        ShapeRenderer.draw(target, buffer(ShapeBuffer.CIRCLE, false, Color.BLACK), 0, COUNT);
+        assertEquals(1, target.strokeChanges);
+        assertEquals(0, target.fillChanges);
+
+        target.reset();
+        ShapeRenderer.draw(target, buffer(ShapeBuffer.RECTANGLE, true, Color.RED, Color.BLUE), 0, COUNT);
+        assertEquals(COUNT, target.fillChanges);
+        assertEquals(0, target.strokeChanges);
+    }
+
+    @Test
+    void drawsOnlyRequestedRange() {
+        CountingDrawingTarget target = new CountingDrawingTarget();
+        ShapeRenderer.draw(target, buffer(ShapeBuffer.LINE, false, Color.BLACK), 100, 250);
+        assertEquals(150, target.shapeCalls);
+
+        target.reset();
+        ShapeRenderer.draw(target, buffer(ShapeBuffer.LINE, false, Color.BLACK), 300, 300);
+        assertEquals(0, target.shapeCalls);
+    }
+}